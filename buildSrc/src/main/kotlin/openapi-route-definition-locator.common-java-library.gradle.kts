@@ -43,6 +43,15 @@ java {
     withSourcesJar()
 }
 
+tasks.named<Jar>("jar") {
+    manifest {
+        attributes(
+            "Implementation-Title" to project.name,
+            "Implementation-Version" to project.version
+        )
+    }
+}
+
 testing {
     suites {
         val test by getting(JvmTestSuite::class) {
@@ -0,0 +1,45 @@
+plugins {
+    java
+    idea
+    id("me.champeau.jmh") version "0.7.3"
+    id("com.github.ben-manes.versions")
+}
+
+apply(plugin = "io.spring.dependency-management")
+
+repositories {
+    mavenCentral()
+}
+
+the<io.spring.gradle.dependencymanagement.dsl.DependencyManagementExtension>().apply {
+    imports {
+        mavenBom(org.springframework.boot.gradle.plugin.SpringBootPlugin.BOM_COORDINATES)
+    }
+}
+
+dependencies {
+    jmhImplementation(platform("org.springframework.cloud:spring-cloud-dependencies:2025.0.0"))
+    jmhImplementation(project(":openapi-route-definition-locator-core"))
+    jmhImplementation("org.springframework.cloud:spring-cloud-gateway-server")
+    jmhImplementation("org.springframework:spring-webflux")
+}
+
+java {
+    toolchain {
+        // Keep the same Java compatibility as Spring Cloud Gateway.
+        languageVersion.set(JavaLanguageVersion.of(17))
+    }
+}
+
+jmh {
+    jmhVersion.set("1.37")
+    benchmarkMode.set(listOf("thrpt", "sample"))
+    timeUnit.set("ms")
+    warmupIterations.set(3)
+    iterations.set(5)
+    fork.set(1)
+    profilers.set(listOf("gc"))
+    resultFormat.set("JSON")
+    // Run a subset of the benchmarks with e.g. `-Pjmh.includes=MapMergeBenchmark`.
+    project.findProperty("jmh.includes")?.let { includes.set(listOf(it.toString())) }
+}
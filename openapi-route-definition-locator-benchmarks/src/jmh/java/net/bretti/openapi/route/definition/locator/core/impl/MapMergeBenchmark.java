@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2022 Jan Bretschneider <mail@jan-bretschneider.de>
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You can find the License in the `LICENSE` file at the top level of
+ * this repository or may obtain a copy at
+ *
+ *   https://raw.githubusercontent.com/jbretsch/openapi-route-definition-locator/master/LICENSE
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package net.bretti.openapi.route.definition.locator.core.impl;
+
+import net.bretti.openapi.route.definition.locator.core.impl.utils.MapMerge;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Measures {@link MapMerge#deepMerge} with the global, service and operation metadata, as done for each route
+ * definition.
+ */
+@State(Scope.Benchmark)
+public class MapMergeBenchmark {
+
+    /**
+     * The number of additional entries in each of the merged maps.
+     */
+    @Param({"0", "10", "100"})
+    int additionalEntries;
+
+    private Optional<Map<String, Object>> globalMetadata;
+    private Optional<Map<String, Object>> serviceMetadata;
+    private Optional<Map<String, Object>> operationMetadata;
+
+    @Setup
+    public void setUp() {
+        globalMetadata = Optional.of(metadata("global"));
+        serviceMetadata = Optional.of(metadata("service"));
+        operationMetadata = Optional.of(metadata("operation"));
+    }
+
+    private Map<String, Object> metadata(String source) {
+        Map<String, Object> metadata = new HashMap<>(SyntheticOpenApiDefinitions.metadata(source));
+        for (int i = 0; i < additionalEntries; i++) {
+            metadata.put(source + "-key-" + i, i % 2 == 0 ? "value-" + i : Map.of("nested", List.of(i)));
+        }
+        return metadata;
+    }
+
+    @Benchmark
+    public Optional<Map<String, Object>> mergeGlobalServiceAndOperationMetadata() {
+        return MapMerge.deepMerge(globalMetadata, serviceMetadata, operationMetadata);
+    }
+
+    @Benchmark
+    public Optional<Map<String, Object>> mergeWithoutOperationMetadata() {
+        return MapMerge.deepMerge(globalMetadata, serviceMetadata, Optional.empty());
+    }
+}
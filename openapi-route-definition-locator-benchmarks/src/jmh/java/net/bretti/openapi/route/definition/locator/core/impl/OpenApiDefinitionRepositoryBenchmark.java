@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2022 Jan Bretschneider <mail@jan-bretschneider.de>
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You can find the License in the `LICENSE` file at the top level of
+ * this repository or may obtain a copy at
+ *
+ *   https://raw.githubusercontent.com/jbretsch/openapi-route-definition-locator/master/LICENSE
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package net.bretti.openapi.route.definition.locator.core.impl;
+
+import net.bretti.openapi.route.definition.locator.core.config.OpenApiRouteDefinitionLocatorProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.core.io.DefaultResourceLoader;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Measures the parsing of OpenAPI definitions and the extraction of their operations, the retrieval of unchanged
+ * OpenAPI definitions and the comparison of extracted operations with the registered ones.
+ */
+@State(Scope.Benchmark)
+public class OpenApiDefinitionRepositoryBenchmark {
+
+    @Param({"10", "1000", "20000"})
+    int operationCount;
+
+    @Param({"SWAGGER_PARSER", "STREAMING"})
+    OpenApiRouteDefinitionLocatorProperties.ParsingEngine parsingEngine;
+
+    private OpenApiRouteDefinitionLocatorProperties.Service service;
+    private String content;
+    private OpenApiDefinitionRepository repository;
+    private List<OpenApiOperation> operations;
+    private List<OpenApiOperation> equalOperations;
+
+    @Setup
+    public void setUp() throws IOException {
+        service = SyntheticOpenApiDefinitions.writeServiceDefinition(operationCount);
+        content = SyntheticOpenApiDefinitions.generate(operationCount);
+        OpenApiRouteDefinitionLocatorProperties properties = SyntheticOpenApiDefinitions.properties(service);
+        repository = createRepository(properties);
+        repository.refreshOperations(service).block();
+        operations = repository.getOperations().get(service);
+
+        OpenApiDefinitionRepository otherRepository = createRepository(properties);
+        otherRepository.refreshOperations(service).block();
+        equalOperations = otherRepository.getOperations().get(service);
+    }
+
+    private OpenApiDefinitionRepository createRepository(OpenApiRouteDefinitionLocatorProperties properties) {
+        OpenApiDefinitionParser parser = parsingEngine == OpenApiRouteDefinitionLocatorProperties.ParsingEngine.STREAMING
+                ? new StreamingOpenApiDefinitionParser()
+                : new SwaggerOpenApiDefinitionParser(properties);
+        return new OpenApiDefinitionRepository(properties, new ConcurrentHashMap<>(), new ConcurrentHashMap<>(),
+                event -> { }, Optional.empty(),
+                new OpenApiDefinitionRetriever(properties, new DefaultResourceLoader(), Optional.empty()),
+                parser, Schedulers.immediate(), Optional.empty());
+    }
+
+    /**
+     * Parses the OpenAPI definition and extracts its operations, as done when the definition changed.
+     */
+    @Benchmark
+    public List<OpenApiOperation> parseAndExtractOperations() {
+        return repository.getOperations(service, content);
+    }
+
+    /**
+     * Retrieves the OpenAPI definition which is recognized as unchanged by its digest and therefore not parsed.
+     */
+    @Benchmark
+    public Boolean refreshUnchangedDefinition() {
+        return repository.refreshOperations(service).block();
+    }
+
+    /**
+     * Compares two equal lists of operations which share no instances, the worst case of the diff that decides
+     * whether routes have to be refreshed.
+     */
+    @Benchmark
+    public boolean compareEqualOperations() {
+        return operations.equals(equalOperations);
+    }
+}
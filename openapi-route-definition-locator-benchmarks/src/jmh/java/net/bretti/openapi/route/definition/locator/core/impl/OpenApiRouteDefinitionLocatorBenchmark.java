@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2022 Jan Bretschneider <mail@jan-bretschneider.de>
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You can find the License in the `LICENSE` file at the top level of
+ * this repository or may obtain a copy at
+ *
+ *   https://raw.githubusercontent.com/jbretsch/openapi-route-definition-locator/master/LICENSE
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package net.bretti.openapi.route.definition.locator.core.impl;
+
+import net.bretti.openapi.route.definition.locator.core.config.OpenApiRouteDefinitionLocatorProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Measures the creation of route definitions by the {@link OpenApiRouteDefinitionLocator}, both when they are
+ * served from its cache and when the operations of the service changed and they have to be created again.
+ */
+@State(Scope.Benchmark)
+public class OpenApiRouteDefinitionLocatorBenchmark {
+
+    @Param({"10", "1000", "20000"})
+    int operationCount;
+
+    private OpenApiRouteDefinitionLocatorProperties.Service service;
+    private ConcurrentHashMap<OpenApiRouteDefinitionLocatorProperties.Service, List<OpenApiOperation>> operations;
+    private List<OpenApiOperation> serviceOperations;
+    private OpenApiRouteDefinitionLocator locator;
+
+    @Setup
+    public void setUp() throws IOException {
+        service = SyntheticOpenApiDefinitions.writeServiceDefinition(operationCount);
+        OpenApiRouteDefinitionLocatorProperties properties = SyntheticOpenApiDefinitions.properties(service);
+        operations = new ConcurrentHashMap<>();
+        OpenApiDefinitionRepository repository = new OpenApiDefinitionRepository(properties, operations,
+                new ConcurrentHashMap<>(), event -> { }, Optional.empty(), null, new StreamingOpenApiDefinitionParser(),
+                null, Optional.empty());
+        serviceOperations = repository.getOperations(service, SyntheticOpenApiDefinitions.generate(operationCount));
+        operations.put(service, serviceOperations);
+        locator = new OpenApiRouteDefinitionLocator(repository, List.of(), properties, Optional.empty(), Optional.empty());
+    }
+
+    @Benchmark
+    public List<RouteDefinition> cachedRouteDefinitions() {
+        return locator.getRouteDefinitions().collectList().block();
+    }
+
+    /**
+     * Replaces the operations of the service with an equal list, as the repository does when the OpenAPI
+     * definition changed, so that all route definitions are created again.
+     */
+    @Benchmark
+    public List<RouteDefinition> createdRouteDefinitions() {
+        operations.put(service, new ArrayList<>(serviceOperations));
+        return locator.getRouteDefinitions().collectList().block();
+    }
+}
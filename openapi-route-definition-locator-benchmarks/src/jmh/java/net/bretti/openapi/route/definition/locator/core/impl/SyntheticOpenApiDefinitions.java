@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2022 Jan Bretschneider <mail@jan-bretschneider.de>
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You can find the License in the `LICENSE` file at the top level of
+ * this repository or may obtain a copy at
+ *
+ *   https://raw.githubusercontent.com/jbretsch/openapi-route-definition-locator/master/LICENSE
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package net.bretti.openapi.route.definition.locator.core.impl;
+
+import net.bretti.openapi.route.definition.locator.core.config.OpenApiRouteDefinitionLocatorProperties;
+import org.springframework.cloud.gateway.filter.FilterDefinition;
+import org.springframework.cloud.gateway.handler.predicate.PredicateDefinition;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Generates OpenAPI definitions of arbitrary size together with configurations resembling those of real gateways.
+ */
+final class SyntheticOpenApiDefinitions {
+
+    private static final String[] HTTP_METHODS = {"get", "post", "put", "delete"};
+
+    private SyntheticOpenApiDefinitions() {
+    }
+
+    /**
+     * Generates an OpenAPI definition with the given number of operations. The definition has global
+     * {@code x-gateway-route-settings} and each operation has its own {@code x-gateway-route-settings} with
+     * filters, an order and metadata.
+     */
+    static String generate(int operationCount) {
+        StringBuilder yaml = new StringBuilder(operationCount * 400);
+        yaml.append("""
+                openapi: 3.0.1
+                info:
+                  title: Synthetic service
+                  version: 1.0.0
+                x-gateway-route-settings:
+                  filters:
+                    - AddResponseHeader=X-Global, global
+                  predicates:
+                    - Header=X-Tenant, .*
+                  metadata:
+                    team: synthetic
+                    limits:
+                      rps: 100
+                      burst: 20
+                    tags: [global-a, global-b]
+                paths:
+                """);
+
+        int pathCount = (operationCount + HTTP_METHODS.length - 1) / HTTP_METHODS.length;
+        int operationIndex = 0;
+        for (int pathIndex = 0; pathIndex < pathCount; pathIndex++) {
+            boolean withPathParameter = pathIndex % 2 == 1;
+            yaml.append("  /resources-").append(pathIndex / 2);
+            if (withPathParameter) {
+                yaml.append("/{itemId}:\n")
+                        .append("    parameters:\n")
+                        .append("      - name: itemId\n")
+                        .append("        in: path\n")
+                        .append("        required: true\n")
+                        .append("        schema:\n")
+                        .append("          type: string\n");
+            } else {
+                yaml.append(":\n");
+            }
+            for (int m = 0; m < HTTP_METHODS.length && operationIndex < operationCount; m++, operationIndex++) {
+                appendOperation(yaml, HTTP_METHODS[m], operationIndex);
+            }
+        }
+        return yaml.toString();
+    }
+
+    private static void appendOperation(StringBuilder yaml, String httpMethod, int operationIndex) {
+        yaml.append("    ").append(httpMethod).append(":\n")
+                .append("      operationId: operation-").append(operationIndex).append('\n')
+                .append("      responses:\n")
+                .append("        '200':\n")
+                .append("          description: OK\n")
+                .append("      x-gateway-route-settings:\n")
+                .append("        filters:\n")
+                .append("          - AddResponseHeader=X-Operation, operation-").append(operationIndex).append('\n')
+                .append("        order: ").append(operationIndex % 3).append('\n')
+                .append("        metadata:\n")
+                .append("          operation: operation-").append(operationIndex).append('\n')
+                .append("          limits:\n")
+                .append("            burst: ").append(operationIndex % 10).append('\n')
+                .append("          tags: [operation]\n");
+    }
+
+    /**
+     * Writes an OpenAPI definition with the given number of operations to a temporary file and returns a service
+     * whose definition is retrieved from that file.
+     */
+    static OpenApiRouteDefinitionLocatorProperties.Service writeServiceDefinition(int operationCount) throws IOException {
+        Path directory = Files.createTempDirectory("openapi-route-definition-locator-benchmark");
+        Path definition = directory.resolve("openapi.yaml");
+        Files.writeString(definition, generate(operationCount), StandardCharsets.UTF_8);
+        definition.toFile().deleteOnExit();
+        directory.toFile().deleteOnExit();
+
+        OpenApiRouteDefinitionLocatorProperties.Service service = new OpenApiRouteDefinitionLocatorProperties.Service();
+        service.setId("synthetic-service");
+        service.setUri(directory.toUri());
+        service.setOpenapiDefinitionUri(URI.create("openapi.yaml"));
+        service.setDefaultRouteSettings(defaultRouteSettings("service"));
+        return service;
+    }
+
+    /**
+     * Creates a configuration with global default route settings for the given service.
+     */
+    static OpenApiRouteDefinitionLocatorProperties properties(OpenApiRouteDefinitionLocatorProperties.Service service) {
+        OpenApiRouteDefinitionLocatorProperties properties = new OpenApiRouteDefinitionLocatorProperties();
+        properties.setDefaultRouteSettings(defaultRouteSettings("global"));
+        properties.setServices(List.of(service));
+        return properties;
+    }
+
+    static OpenApiRouteDefinitionLocatorProperties.DefaultRouteSettings defaultRouteSettings(String source) {
+        OpenApiRouteDefinitionLocatorProperties.DefaultRouteSettings settings =
+                new OpenApiRouteDefinitionLocatorProperties.DefaultRouteSettings();
+        settings.setFilters(List.of(new FilterDefinition("AddResponseHeader=X-Default-" + source + ", " + source)));
+        settings.setPredicates(List.of(new PredicateDefinition("Header=X-Default-" + source + ", .*")));
+        settings.setMetadata(metadata(source));
+        settings.setOrder(Optional.of(1));
+        return settings;
+    }
+
+    /**
+     * Creates nested metadata as typically found in route settings.
+     */
+    static Map<String, Object> metadata(String source) {
+        Map<String, Object> limits = new HashMap<>();
+        limits.put("rps", 100);
+        limits.put(source + "-burst", 20);
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("source", source);
+        metadata.put("limits", limits);
+        metadata.put("tags", List.of(source + "-a", source + "-b"));
+        return metadata;
+    }
+}
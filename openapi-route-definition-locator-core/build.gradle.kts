@@ -4,6 +4,7 @@ plugins {
 
 dependencies {
     compileOnly("io.micrometer:micrometer-core")
+    compileOnly("org.springframework.boot:spring-boot-actuator")
     implementation("org.springframework.cloud:spring-cloud-gateway-server")
     implementation("org.springframework:spring-webflux")
     implementation("io.swagger.parser.v3:swagger-parser:2.1.29")
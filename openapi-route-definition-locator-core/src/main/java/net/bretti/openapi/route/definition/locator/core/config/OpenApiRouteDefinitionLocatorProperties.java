@@ -26,12 +26,17 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.cloud.gateway.filter.FilterDefinition;
 import org.springframework.cloud.gateway.handler.predicate.PredicateDefinition;
 import org.springframework.cloud.gateway.route.RouteDefinition;
+import org.springframework.util.unit.DataSize;
 import org.springframework.validation.annotation.Validated;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import java.net.URI;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
@@ -77,6 +82,52 @@ public class OpenApiRouteDefinitionLocatorProperties {
     @ValidOpenApiDefinitionUri
     private URI openapiDefinitionUri = URI.create(DEFAULT_OPENAPI_DEFINITION_URI);
 
+    /**
+     * Configures how the OpenAPI definitions are retrieved from the configured services.
+     */
+    @Valid
+    private Retrieval retrieval = new Retrieval();
+
+    /**
+     * Configures how the retrieved OpenAPI definitions are parsed.
+     */
+    @Valid
+    private Parsing parsing = new Parsing();
+
+    /**
+     * Configures the local snapshot of the registered operations which is used to register routes right away
+     * when the gateway starts.
+     */
+    @Valid
+    private Snapshot snapshot = new Snapshot();
+
+    /**
+     * Configures the eager retrieval of all OpenAPI definitions while the gateway starts.
+     */
+    @Valid
+    private InitialLoad initialLoad = new InitialLoad();
+
+    /**
+     * Whether operations of a service with the same path and the same filters, predicates, order, metadata and
+     * operation extensions are combined into one route which matches all their HTTP methods. This reduces the number
+     * of routes the gateway has to evaluate for each request.
+     */
+    private boolean consolidateRoutes = false;
+
+    /**
+     * Whether the gateway looks up the route for a request via an index of the path patterns of the created routes.
+     * Then only the predicates of the routes whose path pattern may match the request path are evaluated, in the
+     * usual order. Routes not created by the OpenAPI Route Definition Locator are always evaluated.
+     */
+    private boolean indexedRouteLookup = false;
+
+    /**
+     * Whether the created routes are counted when they are matched and emitted with the most frequently matched
+     * routes first whenever the routes are refreshed. Routes which may match the same requests keep their
+     * relative order. The configured orders of the routes are not changed.
+     */
+    private boolean orderRoutesByHitCount = false;
+
     @Data
     public static class Service {
 
@@ -110,18 +161,93 @@ public class OpenApiRouteDefinitionLocatorProperties {
          */
         @Valid
         private DefaultRouteSettings defaultRouteSettings = new DefaultRouteSettings();
+
+        /**
+         * Options for parsing the OpenAPI definition of this service with swagger-parser. Options not set here
+         * are taken from {@code openapi-route-definition-locator.parsing.parse-options}.
+         */
+        @Valid
+        private SwaggerParseOptions parseOptions = new SwaggerParseOptions();
+
+        /**
+         * Schedule for retrieving the OpenAPI definition of this service. Settings not set here are taken from
+         * {@code openapi-route-definition-locator.update-scheduler}.
+         */
+        @Valid
+        private ServiceUpdateScheduler updateScheduler = new ServiceUpdateScheduler();
+
+        /**
+         * Limits for retrieving the OpenAPI definition of this service. Limits not set here are taken from
+         * {@code openapi-route-definition-locator.retrieval}.
+         */
+        @Valid
+        private ServiceRetrieval retrieval = new ServiceRetrieval();
     }
 
     @Data
-    public static class UpdateScheduler {
+    public static class ServiceRetrieval {
+
+        /**
+         * Maximum time to establish the connection to the server serving the OpenAPI definition.
+         */
+        private Duration connectTimeout;
 
         /**
-         * Fixed delay between runs to retrieve the services' OpenAPI definitions.
+         * Maximum time without receiving data while reading the OpenAPI definition.
+         */
+        private Duration readTimeout;
+
+        /**
+         * Maximum size of the OpenAPI definition.
+         */
+        private DataSize maxDefinitionSize;
+    }
+
+    @Data
+    public static class ServiceUpdateScheduler {
+
+        /**
+         * Delay between the end of one retrieval of the service's OpenAPI definition and the next one.
          * If no timeunit is given, milliseconds are used.
          */
+        private Duration fixedDelay;
+
+        /**
+         * Maximum random delay added to {@link #fixedDelay}. If no timeunit is given, milliseconds are used.
+         */
+        private Duration jitter;
+    }
+
+    @Data
+    public static class UpdateScheduler {
+
+        /**
+         * Delay between the end of one retrieval of a service's OpenAPI definition and the next one. Can be
+         * overridden per service. If no timeunit is given, milliseconds are used.
+         */
         @NotNull
         private Duration fixedDelay = Duration.of(5, ChronoUnit.MINUTES);
 
+        /**
+         * Maximum random delay added to {@link #fixedDelay} and to the first scheduled retrieval, so that the OpenAPI
+         * definitions of different services are not all retrieved at the same moment. Can be overridden per service. If no timeunit is given,
+         * milliseconds are used.
+         */
+        @NotNull
+        private Duration jitter = Duration.ZERO;
+
+        /**
+         * Configures the adaptive delay between retrievals of a service's OpenAPI definition.
+         */
+        @Valid
+        private AdaptiveDelay adaptiveDelay = new AdaptiveDelay();
+
+        /**
+         * Configures the backoff for services whose OpenAPI definitions repeatedly fail to be retrieved.
+         */
+        @Valid
+        private Backoff backoff = new Backoff();
+
         /**
          * When an error occurs while retrieving a service's OpenAPI definition, its registered routes/operations
          * are not immediately de-registered. They are only de-registered if there was no successful retrieval
@@ -129,6 +255,251 @@ public class OpenApiRouteDefinitionLocatorProperties {
          */
         @NotNull
         private Duration removeRoutesOnUpdateFailuresAfter = Duration.of(15, ChronoUnit.MINUTES);
+
+        /**
+         * Maximum number of services whose OpenAPI definitions are retrieved and parsed concurrently
+         * during one run. The publication of the resulting route definitions is always serialized.
+         */
+        @Min(1)
+        private int parallelism = 8;
+
+        /**
+         * Whether changed route definitions are published once per changed service or once per run.
+         */
+        @NotNull
+        private PublicationMode publicationMode = PublicationMode.PER_SERVICE;
+
+        /**
+         * Whether route refreshes caused by a single service only reload the routes of that service. Therefore,
+         * all created routes get the service's ID as metadata. Spring Cloud Gateway then emits the reloaded
+         * routes before all other routes with the same order. Has no effect if routes are ordered by hit count.
+         */
+        private boolean scopedRouteRefresh = false;
+    }
+
+    @Data
+    public static class AdaptiveDelay {
+
+        /**
+         * Whether the delay between retrievals of a service's OpenAPI definition grows while the definition stays
+         * unchanged. After the definition changed, the delay is reset to the configured fixed delay.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Factor by which the delay grows after each retrieval of an unchanged OpenAPI definition.
+         */
+        @DecimalMin("1.0")
+        private double multiplier = 2.0;
+
+        /**
+         * Upper limit of the adaptive delay. If no timeunit is given, milliseconds are used.
+         */
+        @NotNull
+        private Duration maxDelay = Duration.of(30, ChronoUnit.MINUTES);
+    }
+
+    @Data
+    public static class Backoff {
+
+        /**
+         * Whether the delay between retrievals of a service's OpenAPI definition grows exponentially after
+         * consecutive failures. Without backoff, failed retrievals are retried after the fixed delay.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Number of consecutive failures after which the circuit of a service opens and the backoff starts. While
+         * the circuit is open, the service's OpenAPI definition is not retrieved. Once the backoff delay has passed,
+         * one trial retrieval is made (half-open). A successful retrieval closes the circuit again.
+         */
+        @Min(1)
+        private int failureThreshold = 3;
+
+        /**
+         * Factor by which the delay grows after each further failure.
+         */
+        @DecimalMin("1.0")
+        private double multiplier = 2.0;
+
+        /**
+         * Upper limit of the backoff delay. If no timeunit is given, milliseconds are used.
+         */
+        @NotNull
+        private Duration maxDelay = Duration.of(30, ChronoUnit.MINUTES);
+    }
+
+    public enum PublicationMode {
+        /**
+         * Publishes the route definitions after each service whose operations changed. Every publication makes
+         * Spring Cloud Gateway rebuild all routes.
+         */
+        PER_SERVICE,
+
+        /**
+         * Publishes the route definitions of all services whose operations changed during one run with a single
+         * refresh. If that refresh fails, the changes are published service by service to isolate the failing
+         * services.
+         */
+        BATCHED
+    }
+
+    @Data
+    public static class Retrieval {
+
+        /**
+         * The client used to retrieve OpenAPI definitions served via {@code http:} or {@code https:}.
+         * OpenAPI definitions with other URI schemas are always loaded via Spring's ResourceLoader.
+         */
+        @NotNull
+        private HttpClient httpClient = HttpClient.RESOURCE_LOADER;
+
+        /**
+         * Whether to send the {@code ETag} and {@code Last-Modified} values of the previous successful retrieval
+         * as {@code If-None-Match} and {@code If-Modified-Since} headers. If a service then responds with
+         * {@code 304 Not Modified}, its OpenAPI definition is not parsed again. Only effective for OpenAPI
+         * definitions served via {@code http:} or {@code https:}.
+         */
+        private boolean conditionalRequests = true;
+
+        /**
+         * Maximum time to establish the connection to a server serving an OpenAPI definition via {@code http:} or
+         * {@code https:}. If no timeunit is given, milliseconds are used.
+         */
+        @NotNull
+        private Duration connectTimeout = Duration.of(10, ChronoUnit.SECONDS);
+
+        /**
+         * Maximum time without receiving data while reading an OpenAPI definition served via {@code http:} or
+         * {@code https:}. If no timeunit is given, milliseconds are used.
+         */
+        @NotNull
+        private Duration readTimeout = Duration.of(60, ChronoUnit.SECONDS);
+
+        /**
+         * Maximum size of an OpenAPI definition. Retrievals of larger OpenAPI definitions are aborted as soon as
+         * the limit is exceeded. If no unit is given, bytes are used.
+         */
+        @NotNull
+        private DataSize maxDefinitionSize = DataSize.ofMegabytes(64);
+    }
+
+    @Data
+    public static class Snapshot {
+
+        /**
+         * File to which the operations of all services are written after they changed. On startup, the
+         * operations in this file are registered before the OpenAPI definitions are retrieved again. If not set,
+         * no snapshot is used.
+         */
+        private Path file;
+    }
+
+    @Data
+    public static class InitialLoad {
+
+        /**
+         * Whether the OpenAPI definitions of all services are retrieved in parallel before the gateway finishes
+         * starting up. Also registers a health indicator which reports whether enough services are loaded.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Total time the initial load may take. Retrievals which are not done by then keep running in the
+         * background and the operations are registered when they are done. If no timeunit is given, milliseconds
+         * are used.
+         */
+        @NotNull
+        private Duration timeout = Duration.of(30, ChronoUnit.SECONDS);
+
+        /**
+         * Minimum ratio of configured services with registered operations for which the health indicator reports
+         * {@code UP}. Below that ratio it reports {@code OUT_OF_SERVICE}.
+         */
+        @DecimalMin("0.0")
+        @DecimalMax("1.0")
+        private double minLoadedServicesRatio = 1.0;
+    }
+
+    @Data
+    public static class Parsing {
+
+        /**
+         * The engine used to extract the operations from the retrieved OpenAPI definitions.
+         */
+        @NotNull
+        private ParsingEngine engine = ParsingEngine.SWAGGER_PARSER;
+
+        /**
+         * Options for parsing OpenAPI definitions with swagger-parser. Only effective if {@link #engine} is
+         * {@link ParsingEngine#SWAGGER_PARSER}.
+         */
+        @Valid
+        private SwaggerParseOptions parseOptions = new SwaggerParseOptions();
+
+        /**
+         * The OpenAPI extensions ({@code x-...}) that are kept after the operations were extracted and passed to
+         * the {@code OpenApiRouteDefinitionCustomizer}s. All other extensions are dropped to save memory. If empty,
+         * all extensions are kept.
+         */
+        private List<String> retainedExtensions = new ArrayList<>();
+    }
+
+    /**
+     * Options passed to swagger-parser. Options which are not set keep the default of swagger-parser.
+     */
+    @Data
+    public static class SwaggerParseOptions {
+
+        /**
+         * Whether to resolve references ({@code $ref}) to other documents.
+         */
+        private Boolean resolve;
+
+        /**
+         * Whether to resolve all references, including the ones within the same document.
+         */
+        private Boolean resolveFully;
+
+        /**
+         * Whether to flatten inline schemas into named schemas.
+         */
+        private Boolean flatten;
+
+        /**
+         * Whether to validate references within the same document.
+         */
+        private Boolean validateInternalRefs;
+
+        /**
+         * Whether to validate references to other documents.
+         */
+        private Boolean validateExternalRefs;
+    }
+
+    public enum ParsingEngine {
+        /**
+         * Parses OpenAPI definitions into the full swagger-parser model, including schemas and resolved references.
+         */
+        SWAGGER_PARSER,
+
+        /**
+         * Streams over the OpenAPI definition and only extracts paths, HTTP methods and extensions. Much cheaper
+         * for large OpenAPI definitions, but does not resolve references and only supports OpenAPI 3.x.
+         */
+        STREAMING
+    }
+
+    public enum HttpClient {
+        /**
+         * Loads OpenAPI definitions via Spring's ResourceLoader which opens a new blocking connection per retrieval.
+         */
+        RESOURCE_LOADER,
+
+        /**
+         * Retrieves OpenAPI definitions via a non-blocking WebClient using a pool of keep-alive connections.
+         */
+        WEB_CLIENT
     }
 
     /**
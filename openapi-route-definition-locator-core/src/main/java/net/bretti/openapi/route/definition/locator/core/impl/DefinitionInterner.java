@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2022 Jan Bretschneider <mail@jan-bretschneider.de>
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You can find the License in the `LICENSE` file at the top level of
+ * this repository or may obtain a copy at
+ *
+ *   https://raw.githubusercontent.com/jbretsch/openapi-route-definition-locator/master/LICENSE
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package net.bretti.openapi.route.definition.locator.core.impl;
+
+import org.springframework.cloud.gateway.filter.FilterDefinition;
+import org.springframework.cloud.gateway.handler.predicate.PredicateDefinition;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Canonicalizes equal {@link FilterDefinition}s and {@link PredicateDefinition}s, equal lists of them and equal maps
+ * of OpenAPI extensions, so that they share one instance. Interned definitions have unmodifiable arguments and
+ * interned lists and maps are unmodifiable.
+ * An interner is used for the operations of one service while they are extracted from its OpenAPI definition. It is
+ * seeded with the currently registered operations of that service so that unchanged definitions keep their instances
+ * and comparing the old with the new operations mostly boils down to identity checks.
+ */
+class DefinitionInterner {
+
+    private final Map<FilterDefinition, FilterDefinition> filters = new HashMap<>();
+    private final Map<PredicateDefinition, PredicateDefinition> predicates = new HashMap<>();
+    private final Map<List<FilterDefinition>, List<FilterDefinition>> filterLists = new HashMap<>();
+    private final Map<List<PredicateDefinition>, List<PredicateDefinition>> predicateLists = new HashMap<>();
+    private final Map<Map<String, Object>, Map<String, Object>> extensions = new HashMap<>();
+
+    static DefinitionInterner seededWith(List<OpenApiOperation> operations) {
+        DefinitionInterner interner = new DefinitionInterner();
+        if (operations != null) {
+            operations.forEach(operation -> {
+                operation.getFilters().forEach(filter -> interner.filters.putIfAbsent(filter, filter));
+                operation.getPredicates().forEach(predicate -> interner.predicates.putIfAbsent(predicate, predicate));
+                interner.filterLists.putIfAbsent(operation.getFilters(), operation.getFilters());
+                interner.predicateLists.putIfAbsent(operation.getPredicates(), operation.getPredicates());
+                interner.extensions.putIfAbsent(operation.getOpenApiExtension(), operation.getOpenApiExtension());
+                interner.extensions.putIfAbsent(operation.getOpenApiOperationExtension(), operation.getOpenApiOperationExtension());
+            });
+        }
+        return interner;
+    }
+
+    FilterDefinition intern(FilterDefinition filter) {
+        return filters.computeIfAbsent(filter, filter1 -> {
+            filter1.setArgs(Collections.unmodifiableMap(filter1.getArgs()));
+            return filter1;
+        });
+    }
+
+    PredicateDefinition intern(PredicateDefinition predicate) {
+        return predicates.computeIfAbsent(predicate, predicate1 -> {
+            predicate1.setArgs(Collections.unmodifiableMap(predicate1.getArgs()));
+            return predicate1;
+        });
+    }
+
+    List<FilterDefinition> internFilters(List<FilterDefinition> filterList) {
+        List<FilterDefinition> internedFilters = filterList.stream().map(this::intern).toList();
+        return filterLists.computeIfAbsent(internedFilters, filterList1 -> filterList1);
+    }
+
+    List<PredicateDefinition> internPredicates(List<PredicateDefinition> predicateList) {
+        List<PredicateDefinition> internedPredicates = predicateList.stream().map(this::intern).toList();
+        return predicateLists.computeIfAbsent(internedPredicates, predicateList1 -> predicateList1);
+    }
+
+    /**
+     * Interns the given map of OpenAPI extensions. The given map must not be modified afterwards.
+     */
+    Map<String, Object> internExtensions(Map<String, Object> extensionMap) {
+        if (extensionMap.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return extensions.computeIfAbsent(extensionMap, Collections::unmodifiableMap);
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2022 Jan Bretschneider <mail@jan-bretschneider.de>
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You can find the License in the `LICENSE` file at the top level of
+ * this repository or may obtain a copy at
+ *
+ *   https://raw.githubusercontent.com/jbretsch/openapi-route-definition-locator/master/LICENSE
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package net.bretti.openapi.route.definition.locator.core.impl;
+
+import lombok.Value;
+
+import java.util.Optional;
+
+/**
+ * The values of the HTTP response headers {@code ETag} and {@code Last-Modified} of a retrieved OpenAPI definition.
+ * They are sent as {@code If-None-Match} and {@code If-Modified-Since} with the next request for that definition.
+ */
+@Value
+class HttpCacheValidators {
+    Optional<String> eTag;
+    Optional<String> lastModified;
+
+    boolean isEmpty() {
+        return !eTag.isPresent() && !lastModified.isPresent();
+    }
+}
@@ -18,47 +18,45 @@
 
 package net.bretti.openapi.route.definition.locator.core.impl;
 
-import io.swagger.parser.OpenAPIParser;
-import io.swagger.v3.oas.models.OpenAPI;
-import io.swagger.v3.oas.models.PathItem;
-import io.swagger.v3.parser.core.models.SwaggerParseResult;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 import net.bretti.openapi.route.definition.locator.core.config.OpenApiRouteDefinitionLocatorProperties;
 import net.bretti.openapi.route.definition.locator.core.impl.utils.MapMerge;
-import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.cloud.gateway.event.RefreshRoutesEvent;
 import org.springframework.cloud.gateway.event.RefreshRoutesResultEvent;
 import org.springframework.cloud.gateway.filter.FilterDefinition;
 import org.springframework.cloud.gateway.handler.predicate.PredicateDefinition;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.ApplicationListener;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.ResourceLoader;
-import org.springframework.http.HttpMethod;
 import org.springframework.lang.NonNull;
 import org.springframework.util.CollectionUtils;
-import org.springframework.util.StreamUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
-import java.io.IOException;
-import java.io.InputStream;
-import java.net.URI;
-import java.nio.charset.StandardCharsets;
+import jakarta.annotation.PostConstruct;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import static net.bretti.openapi.route.definition.locator.core.impl.OpenApiRouteDefinitionLocatorMetrics.METRIC_NAME_UPDATES;
+import static net.bretti.openapi.route.definition.locator.core.impl.OpenApiRouteDefinitionLocatorMetrics.METRIC_NAME_UPDATE_CYCLES;
 import static net.bretti.openapi.route.definition.locator.core.impl.OpenApiRouteDefinitionLocatorMetrics.METRIC_TAG_UPDATE_RESULT;
 import static net.bretti.openapi.route.definition.locator.core.impl.OpenApiRouteDefinitionLocatorMetrics.METRIC_TAG_UPDATE_RESULT_DETAILED;
 import static net.bretti.openapi.route.definition.locator.core.impl.OpenApiRouteDefinitionLocatorMetrics.METRIC_TAG_UPDATE_RESULT_DETAILED_FAILURE_PUBLICATION;
@@ -68,11 +66,10 @@ import static net.bretti.openapi.route.definition.locator.core.impl.OpenApiRoute
 import static net.bretti.openapi.route.definition.locator.core.impl.OpenApiRouteDefinitionLocatorMetrics.METRIC_TAG_UPDATE_RESULT_FAILURE;
 import static net.bretti.openapi.route.definition.locator.core.impl.OpenApiRouteDefinitionLocatorMetrics.METRIC_TAG_UPDATE_RESULT_SUCCESS;
 import static net.bretti.openapi.route.definition.locator.core.impl.OpenApiRouteDefinitionLocatorMetrics.METRIC_TAG_UPSTREAM_SERVICE;
-import static org.apache.commons.lang3.ObjectUtils.firstNonNull;
 
 @RequiredArgsConstructor
 @Slf4j
-public class OpenApiDefinitionRepository implements ApplicationListener<RefreshRoutesResultEvent> {
+public class OpenApiDefinitionRepository implements ApplicationListener<RefreshRoutesResultEvent>, DisposableBean {
     private static final String X_GATEWAY_ROUTE_SETTINGS = "x-gateway-route-settings";
     private static final String FILTERS = "filters";
     private static final String PREDICATES = "predicates";
@@ -86,79 +83,530 @@ public class OpenApiDefinitionRepository implements ApplicationListener<RefreshR
     private final ConcurrentHashMap<OpenApiRouteDefinitionLocatorProperties.Service, Instant> firstRetrievalFailures;
     private final ApplicationEventPublisher applicationEventPublisher;
     private final Optional<OpenApiRouteDefinitionLocatorTimedMetrics> metrics;
-    private final ResourceLoader resourceLoader;
+    private final OpenApiDefinitionRetriever openApiDefinitionRetriever;
+    private final OpenApiDefinitionParser openApiDefinitionParser;
+    private final Scheduler updateScheduler;
+    private final Optional<OpenApiOperationsSnapshotStore> snapshotStore;
+    private final ConcurrentHashMap<OpenApiRouteDefinitionLocatorProperties.Service, HttpCacheValidators> cacheValidators =
+            new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<OpenApiRouteDefinitionLocatorProperties.Service, String> contentDigests =
+            new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<OpenApiRouteDefinitionLocatorProperties.Service, Mono<RetrievalResult>> inFlightRetrievals =
+            new ConcurrentHashMap<>();
+    private final UpdateSchedule updateSchedule = new UpdateSchedule();
+    /**
+     * The services whose scheduled update was started by {@link #getOpenApiDefinitions()} and is not done yet.
+     */
+    private final Set<OpenApiRouteDefinitionLocatorProperties.Service> updatingServices = ConcurrentHashMap.newKeySet();
+    private final Object publicationLock = new Object();
+    private final Object snapshotWriteLock = new Object();
     private Throwable lastRouteDefinitionPublicationFailureCause;
+    private boolean snapshotOutdated = false;
+
+    /**
+     * Registers the operations of the last snapshot right away, so that routes are available before the first
+     * update run. That run then revalidates them; unchanged OpenAPI definitions are recognized by their digest.
+     * Digests are dropped if the operations were extracted with other settings or versions, so that the OpenAPI
+     * definitions are parsed again.
+     */
+    @PostConstruct
+    void loadSnapshot() {
+        snapshotStore.ifPresent(store -> {
+            Map<String, OpenApiOperationsSnapshotStore.ServiceSnapshot> serviceSnapshots = store.load();
+            config.getServices().forEach(service -> {
+                OpenApiOperationsSnapshotStore.ServiceSnapshot serviceSnapshot = serviceSnapshots.get(service.getId());
+                if (serviceSnapshot == null) {
+                    return;
+                }
+                List<OpenApiOperation> snapshotOperations = serviceSnapshot.toOpenApiOperations(service);
+                operations.put(service, snapshotOperations);
+                if (getExtractionFingerprint(service).equals(serviceSnapshot.getExtractionFingerprint())) {
+                    // Not via storeContentDigest, which would mark the snapshot the digest comes from as outdated.
+                    Optional.ofNullable(serviceSnapshot.getContentDigest()).ifPresent(digest -> {
+                        contentDigests.put(service, digest);
+                        metrics.ifPresent(metrics1 -> metrics1.recordOpenApiDefinitionDigest(service.getId(), digest));
+                    });
+                } else {
+                    log.info("Operations of {} in the snapshot were extracted with other settings or versions. " +
+                             "Its OpenAPI definition will be parsed again.", service.getId());
+                }
+                log.info("Registered {} operations for {} from snapshot", snapshotOperations.size(), service.getId());
+            });
+        });
+    }
 
+    /**
+     * Starts updating the operations of the services whose next retrieval is due according to their schedule and
+     * returns without waiting for them. Services which are still being updated are skipped, and at most as many
+     * services are updated at the same time as the configured parallelism allows. The remaining due services are
+     * started by one of the next calls, so that a slow or hanging service does not delay the updates of the others.
+     */
     void getOpenApiDefinitions() {
-        config.getServices().forEach(this::getAndUpdateOperationsSafely);
+        Instant now = Instant.now();
+        int freeSlots = config.getUpdateScheduler().getParallelism() - updatingServices.size();
+        List<OpenApiRouteDefinitionLocatorProperties.Service> dueServices = config.getServices().stream()
+                .filter(service -> !updatingServices.contains(service))
+                .filter(service -> updateSchedule.isDue(config, service, now))
+                .limit(Math.max(freeSlots, 0))
+                .collect(Collectors.toList());
+        if (dueServices.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        updatingServices.addAll(dueServices);
+        updateOperationsOfServices(dueServices)
+                .doFinally(signalType -> dueServices.forEach(updatingServices::remove))
+                .subscribe(successes -> {
+                    writeSnapshotIfOutdated();
+
+                    long failures = dueServices.size() - successes;
+                    long durationNanos = System.nanoTime() - start;
+                    log.info("Finished updating operations of {} services in {} ms. Updates failed for {} services.",
+                            dueServices.size(), TimeUnit.NANOSECONDS.toMillis(durationNanos), failures);
+                    metrics.ifPresent(metrics1 -> metrics1.recordTime(METRIC_NAME_UPDATE_CYCLES, durationNanos, TimeUnit.NANOSECONDS,
+                            METRIC_TAG_UPDATE_RESULT, failures == 0 ? METRIC_TAG_UPDATE_RESULT_SUCCESS : METRIC_TAG_UPDATE_RESULT_FAILURE));
+                });
+    }
+
+    /**
+     * Retrieves the OpenAPI definitions of all services like a regular update run, but stops waiting for the
+     * services which are not done when the given timeout expires. Their retrievals keep running in the background
+     * and their operations are published as soon as they are done.
+     */
+    void loadInitially(Duration timeout) {
+        long start = System.nanoTime();
+        log.info("Loading operations of {} services with a timeout of {}", config.getServices().size(), timeout);
+        long successes = loadOperationsOfServices(config.getServices(), timeout);
+
+        writeSnapshotIfOutdated();
+
+        log.info("Finished initial load of operations in {} ms. Updates succeeded for {} of {} services. " +
+                 "Operations of {} services are registered.", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                successes, config.getServices().size(), getLoadedServicesCount());
+    }
+
+    /**
+     * Retrieves the OpenAPI definitions of the given services and publishes the changed operations. Emits the number
+     * of successful updates once all of them are done.
+     */
+    private Mono<Long> updateOperationsOfServices(List<OpenApiRouteDefinitionLocatorProperties.Service> services) {
+        int parallelism = config.getUpdateScheduler().getParallelism();
+        if (config.getUpdateScheduler().getPublicationMode() == OpenApiRouteDefinitionLocatorProperties.PublicationMode.BATCHED) {
+            return Flux.fromIterable(services)
+                    .flatMap(this::retrieveOperationsSingleFlight, parallelism)
+                    .collectList()
+                    .map(retrievalResults -> retrievalResults.size() - updateOperationsBatchedSafely(retrievalResults));
+        }
+
+        return Flux.fromIterable(services)
+                .flatMap(this::getAndUpdateOperationsSafely, parallelism)
+                .filter(success -> success)
+                .count();
+    }
+
+    /**
+     * Retrieves the OpenAPI definitions of the given services and publishes the changed operations. When the given
+     * timeout expires, this method returns without waiting for the services which are not done yet. Their updates
+     * continue in the background. Returns the number of successful updates which were done in time.
+     */
+    private long loadOperationsOfServices(List<OpenApiRouteDefinitionLocatorProperties.Service> services, Duration timeout) {
+        int parallelism = config.getUpdateScheduler().getParallelism();
+        if (config.getUpdateScheduler().getPublicationMode() == OpenApiRouteDefinitionLocatorProperties.PublicationMode.BATCHED) {
+            Flux<RetrievalResult> retrievals = Flux.fromIterable(services)
+                    .flatMap(this::retrieveOperationsSingleFlight, parallelism)
+                    .cache();
+            List<RetrievalResult> retrievalResults = takeUntilTimeout(retrievals, timeout).collectList().block();
+            long failures = updateOperationsBatchedSafely(retrievalResults);
+            // The cached flux replays the results taken above, so only the late ones are published here.
+            retrievals.skip(retrievalResults.size())
+                    .collectList()
+                    .filter(lateRetrievalResults -> !lateRetrievalResults.isEmpty())
+                    .subscribe(lateRetrievalResults -> {
+                        updateOperationsBatchedSafely(lateRetrievalResults);
+                        writeSnapshotIfOutdated();
+                    });
+            return retrievalResults.size() - failures;
+        }
+
+        Flux<Boolean> updates = Flux.fromIterable(services)
+                .flatMap(this::getAndUpdateOperationsSafely, parallelism)
+                .cache();
+        long successes = takeUntilTimeout(updates, timeout)
+                .filter(success -> success)
+                .count()
+                .block();
+        updates.then(Mono.fromRunnable(this::writeSnapshotIfOutdated)).subscribe();
+        return successes;
+    }
+
+    private long updateOperationsBatchedSafely(List<RetrievalResult> retrievalResults) {
+        synchronized (publicationLock) {
+            return updateOperationsBatched(retrievalResults);
+        }
+    }
+
+    /**
+     * Retrieves the OpenAPI definition of the given service right away and publishes its operations if they changed.
+     * If a retrieval for that service is already in flight, its result is used instead of retrieving the OpenAPI
+     * definition again. Emits whether the update was successful.
+     */
+    Mono<Boolean> refreshOperations(OpenApiRouteDefinitionLocatorProperties.Service service) {
+        return getAndUpdateOperationsSafely(service)
+                .doOnNext(success -> writeSnapshotIfOutdated());
+    }
+
+    /**
+     * Emits the elements of the given flux until the timeout expires. The given flux must be cached, so that it keeps
+     * running when the returned flux cancels it.
+     */
+    private static <T> Flux<T> takeUntilTimeout(Flux<T> cachedFlux, Duration timeout) {
+        return cachedFlux.take(timeout);
+    }
+
+    /**
+     * Writes the snapshot if the operations or digests changed since it was written last. Only copying them holds
+     * {@link #publicationLock}, so that publications do not wait for the file I/O. Writes are serialized by
+     * {@link #snapshotWriteLock}, so that an older copy never overwrites a newer one.
+     */
+    private void writeSnapshotIfOutdated() {
+        snapshotStore.ifPresent(store -> {
+            synchronized (snapshotWriteLock) {
+                Map<OpenApiRouteDefinitionLocatorProperties.Service, List<OpenApiOperation>> operationsCopy;
+                Map<OpenApiRouteDefinitionLocatorProperties.Service, String> contentDigestsCopy;
+                synchronized (publicationLock) {
+                    if (!snapshotOutdated) {
+                        return;
+                    }
+                    operationsCopy = new HashMap<>(operations);
+                    contentDigestsCopy = new HashMap<>(contentDigests);
+                    snapshotOutdated = false;
+                }
+                store.write(operationsCopy, contentDigestsCopy, this::getExtractionFingerprint);
+            }
+        });
+    }
+
+    private String getExtractionFingerprint(OpenApiRouteDefinitionLocatorProperties.Service service) {
+        return OpenApiOperationsSnapshotStore.extractionFingerprint(config, service);
+    }
+
+    /**
+     * Returns the number of configured services for which operations are registered.
+     */
+    long getLoadedServicesCount() {
+        return config.getServices().stream()
+                .filter(operations::containsKey)
+                .count();
+    }
+
+    UpdateSchedule.CircuitState getCircuitState(OpenApiRouteDefinitionLocatorProperties.Service service) {
+        return updateSchedule.getCircuitState(config, service, Instant.now());
     }
 
     int getRegisteredOperationsCount(OpenApiRouteDefinitionLocatorProperties.Service service) {
         return Optional.ofNullable(operations.get(service)).orElse(Collections.emptyList()).size();
     }
 
-    private void getAndUpdateOperationsSafely(OpenApiRouteDefinitionLocatorProperties.Service service) {
-        try {
-            getAndUpdateOperations(service);
-        } catch (Exception e) {
-            log.error("Unexpected error while retrieving and publishing REST operations for {}", service.getId(), e);
+    @Override
+    public void destroy() {
+        updateScheduler.dispose();
+    }
+
+    /**
+     * Retrieves the OpenAPI definition of the given service and publishes the contained operations. Retrieval and
+     * parsing may run concurrently for several services. Updating {@link #operations} and publishing the route
+     * definitions happens while holding {@link #publicationLock} so that route refreshes never interleave.
+     * Emits whether the update was successful.
+     */
+    private Mono<Boolean> getAndUpdateOperationsSafely(OpenApiRouteDefinitionLocatorProperties.Service service) {
+        return retrieveOperationsSingleFlight(service)
+                .map(retrievalResult -> {
+                    synchronized (publicationLock) {
+                        return updateOperations(retrievalResult);
+                    }
+                })
+                .defaultIfEmpty(false)
+                .onErrorResume(e -> {
+                    log.error("Unexpected error while retrieving and publishing REST operations for {}", service.getId(), e);
+                    updateSchedule.recordFailure(config, service, Instant.now());
+                    return Mono.just(false);
+                });
+    }
+
+    /**
+     * Joins the retrieval of the given service's OpenAPI definition which is currently in flight, if any. Otherwise,
+     * starts a new one. This way, concurrent refreshes and update runs retrieve each OpenAPI definition only once.
+     */
+    private Mono<RetrievalResult> retrieveOperationsSingleFlight(OpenApiRouteDefinitionLocatorProperties.Service service) {
+        return Mono.defer(() -> inFlightRetrievals.computeIfAbsent(service, this::startRetrieval));
+    }
+
+    /**
+     * Creates the shared retrieval for the given service. When it is done, it removes itself from
+     * {@link #inFlightRetrievals}, but not a newer retrieval which may have replaced it there in the meantime.
+     */
+    private Mono<RetrievalResult> startRetrieval(OpenApiRouteDefinitionLocatorProperties.Service service) {
+        AtomicReference<Mono<RetrievalResult>> retrieval = new AtomicReference<>();
+        retrieval.set(retrieveOperationsSafely(service)
+                .doFinally(signalType -> inFlightRetrievals.remove(service, retrieval.get()))
+                .cache());
+        return retrieval.get();
+    }
+
+    /**
+     * Retrieves and parses the OpenAPI definition of the given service. Failures are handled immediately; then
+     * nothing is emitted.
+     */
+    private Mono<RetrievalResult> retrieveOperationsSafely(OpenApiRouteDefinitionLocatorProperties.Service service) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            log.info("Getting list of operations for {}", service.getId());
+            return Mono.defer(() -> openApiDefinitionRetriever.retrieve(service, Optional.ofNullable(cacheValidators.get(service))))
+                    .subscribeOn(updateScheduler)
+                    .publishOn(updateScheduler)
+                    .map(retrieved -> toRetrievalResult(service, retrieved, start))
+                    .onErrorResume(e -> {
+                        synchronized (publicationLock) {
+                            handleUpdateFailure(service, e, start);
+                        }
+                        return Mono.empty();
+                    });
+        }).onErrorResume(e -> {
+            log.error("Unexpected error while retrieving REST operations for {}", service.getId(), e);
+            updateSchedule.recordFailure(config, service, Instant.now());
+            return Mono.empty();
+        });
+    }
+
+    /**
+     * Parses the retrieved OpenAPI definition unless the service reported it as not modified or its digest equals
+     * the digest of the definition the currently registered operations were created from.
+     */
+    private RetrievalResult toRetrievalResult(
+            OpenApiRouteDefinitionLocatorProperties.Service service,
+            RetrievedOpenApiDefinition retrieved,
+            long start
+    ) {
+        String currentContentDigest = contentDigests.get(service);
+        if (retrieved.getContent().isEmpty()) {
+            return new RetrievalResult(service, Optional.empty(), Optional.ofNullable(currentContentDigest),
+                    retrieved.getCacheValidators(), start);
+        }
+
+        String contentDigest = retrieved.getContentDigest().get();
+        if (contentDigest.equals(currentContentDigest)) {
+            log.debug("OpenAPI definition of {} has unchanged digest {}. Skipping parsing.", service.getId(), contentDigest);
+            return new RetrievalResult(service, Optional.empty(), Optional.of(contentDigest),
+                    retrieved.getCacheValidators(), start);
+        }
+
+        List<OpenApiOperation> newOpenApiOperations = getOperations(service, retrieved.getContent().get());
+        return new RetrievalResult(service, Optional.of(newOpenApiOperations), Optional.of(contentDigest),
+                retrieved.getCacheValidators(), start);
+    }
+
+    private boolean isChange(RetrievalResult retrievalResult) {
+        return retrievalResult.getOperations()
+                .filter(newOpenApiOperations -> !newOpenApiOperations.equals(operations.get(retrievalResult.getService())))
+                .isPresent();
+    }
+
+    /**
+     * Applies the given retrieval result unless that already happened, e.g. because the retrieval was shared by a
+     * refresh and an update run. Then the outcome of the first application is returned.
+     */
+    private boolean updateOperations(RetrievalResult retrievalResult) {
+        Boolean previousUpdateResult = retrievalResult.getUpdateSuccessful().get();
+        if (previousUpdateResult != null) {
+            return previousUpdateResult;
         }
+        boolean updateSuccessful = applyRetrievalResult(retrievalResult);
+        retrievalResult.getUpdateSuccessful().set(updateSuccessful);
+        return updateSuccessful;
     }
 
-    private void getAndUpdateOperations(OpenApiRouteDefinitionLocatorProperties.Service service) {
-        long start = System.nanoTime();
+    private boolean applyRetrievalResult(RetrievalResult retrievalResult) {
+        OpenApiRouteDefinitionLocatorProperties.Service service = retrievalResult.getService();
         List<OpenApiOperation> oldOpenApiOperations = operations.get(service);
         try {
-            log.info("Getting list of operations for {}", service.getId());
-            List<OpenApiOperation> newOpenApiOperations = getOperations(service);
-
-            if (newOpenApiOperations.equals(oldOpenApiOperations)) {
-                log.info("List of {} operations is unchanged for {}", oldOpenApiOperations.size(), service.getId());
-                firstRetrievalFailures.remove(service);
-                metricsRecordRetrievalResult(service, METRIC_TAG_UPDATE_RESULT_SUCCESS,
-                        METRIC_TAG_UPDATE_RESULT_DETAILED_SUCCESS_WITHOUT_CHANGES, start);
-                return;
+            if (retrievalResult.getOperations().isEmpty()) {
+                log.info("OpenAPI definition of {} is unchanged (digest {}). Keeping {} operations.",
+                        service.getId(), retrievalResult.getContentDigest().orElse("unknown"),
+                        getRegisteredOperationsCount(service));
+                recordSuccessfulUpdate(retrievalResult, METRIC_TAG_UPDATE_RESULT_DETAILED_SUCCESS_WITHOUT_CHANGES);
+                return true;
+            }
+
+            if (!isChange(retrievalResult)) {
+                log.info("List of {} operations is unchanged for {} (OpenAPI definition digest {})",
+                        oldOpenApiOperations.size(), service.getId(), retrievalResult.getContentDigest().orElse("unknown"));
+                recordSuccessfulUpdate(retrievalResult, METRIC_TAG_UPDATE_RESULT_DETAILED_SUCCESS_WITHOUT_CHANGES);
+                return true;
             }
 
-            log.info("Got new list of {} operations for {}", newOpenApiOperations.size(), service.getId());
+            List<OpenApiOperation> newOpenApiOperations = retrievalResult.getOperations().get();
+            log.info("Got new list of {} operations for {} (OpenAPI definition digest {})",
+                    newOpenApiOperations.size(), service.getId(), retrievalResult.getContentDigest().orElse("unknown"));
             operations.put(service, newOpenApiOperations);
             publishNewOpenApiOperationsAndRollbackOnFailure(service, oldOpenApiOperations);
 
             // Only reached if no rollback was performed.
-            firstRetrievalFailures.remove(service);
-            metricsRecordRetrievalResult(service, METRIC_TAG_UPDATE_RESULT_SUCCESS,
-                    METRIC_TAG_UPDATE_RESULT_DETAILED_SUCCESS_WITH_CHANGES, start);
+            recordSuccessfulUpdate(retrievalResult, METRIC_TAG_UPDATE_RESULT_DETAILED_SUCCESS_WITH_CHANGES);
+            return true;
         } catch (Exception e) {
-            String updateResultFailureDetailed = e instanceof OpenApiRouteDefinitionPublishException
-                    ? METRIC_TAG_UPDATE_RESULT_DETAILED_FAILURE_PUBLICATION
-                    : METRIC_TAG_UPDATE_RESULT_DETAILED_FAILURE_RETRIEVAL;
-            metricsRecordRetrievalResult(service, METRIC_TAG_UPDATE_RESULT_FAILURE, updateResultFailureDetailed, start);
-            log.error("Error while retrieving and publishing REST operations for {}", service.getId(), e);
-            Instant now = Instant.now();
-            Instant firstRetrievalFailure = firstRetrievalFailures.computeIfAbsent(service, k -> now);
-
-            if (CollectionUtils.isEmpty(oldOpenApiOperations)) {
-                log.error("Retrieving and publishing operations for {} keeps failing since {}. Currently, no operations for this " +
-                          "service are registered.", service.getId(), firstRetrievalFailure);
-                return;
+            handleUpdateFailure(service, e, retrievalResult.getStartNanoTime());
+            return false;
+        }
+    }
+
+    /**
+     * Applies the changed operations of all given services at once and publishes them with a single
+     * {@link RefreshRoutesEvent}. If that publication fails, all changes are rolled back and then applied and
+     * published service by service so that only the offending services are rolled back. Returns the number of
+     * failed updates.
+     */
+    private long updateOperationsBatched(List<RetrievalResult> retrievalResults) {
+        long failures = 0;
+        List<RetrievalResult> changes = new ArrayList<>();
+        for (RetrievalResult retrievalResult : retrievalResults) {
+            if (retrievalResult.getUpdateSuccessful().get() == null && isChange(retrievalResult)) {
+                changes.add(retrievalResult);
+            } else if (!updateOperations(retrievalResult)) {
+                failures++;
             }
+        }
+        if (changes.isEmpty()) {
+            return failures;
+        }
 
-            Duration removeAfterDuration = config.getUpdateScheduler().getRemoveRoutesOnUpdateFailuresAfter();
-            Instant removeAfterInstant = firstRetrievalFailure.plus(removeAfterDuration);
+        List<OpenApiRouteDefinitionLocatorProperties.Service> changedServices = changes.stream()
+                .map(RetrievalResult::getService)
+                .collect(Collectors.toList());
+        String serviceIds = toServiceIds(changedServices);
+        Map<OpenApiRouteDefinitionLocatorProperties.Service, Optional<List<OpenApiOperation>>> oldOperations = new HashMap<>();
+        changes.forEach(change -> {
+            OpenApiRouteDefinitionLocatorProperties.Service service = change.getService();
+            List<OpenApiOperation> newOpenApiOperations = change.getOperations().get();
+            log.info("Got new list of {} operations for {} (OpenAPI definition digest {})",
+                    newOpenApiOperations.size(), service.getId(), change.getContentDigest().orElse("unknown"));
+            oldOperations.put(service, Optional.ofNullable(operations.put(service, newOpenApiOperations)));
+        });
 
-            if (now.isAfter(removeAfterInstant)) {
-                operations.remove(service);
-                log.error("De-registering operations of {}. First retrieval/publishing failure was at {}. " +
-                          "That is more than {} ago.", service.getId(), firstRetrievalFailure, removeAfterDuration);
-                publishNewOpenApiOperations(service);
-                return;
+        try {
+            publishNewOpenApiOperations(changedServices);
+            changes.forEach(change -> {
+                recordSuccessfulUpdate(change, METRIC_TAG_UPDATE_RESULT_DETAILED_SUCCESS_WITH_CHANGES);
+                change.getUpdateSuccessful().set(true);
+            });
+            return failures;
+        } catch (Exception e) {
+            log.error("Error while publishing route definitions for {} in one refresh. Publishing them service by " +
+                      "service to isolate the offending services.", serviceIds, e);
+        }
+
+        oldOperations.forEach((service, oldOpenApiOperations) -> oldOpenApiOperations.ifPresentOrElse(
+                oldOpenApiOperations1 -> operations.put(service, oldOpenApiOperations1),
+                () -> operations.remove(service)));
+        try {
+            publishNewOpenApiOperations(changedServices);
+        } catch (Exception e) {
+            log.error("Error while publishing rolled back route definitions for {}", serviceIds, e);
+        }
+
+        for (RetrievalResult change : changes) {
+            if (!updateOperations(change)) {
+                failures++;
             }
+        }
+        return failures;
+    }
+
+    private void recordSuccessfulUpdate(RetrievalResult retrievalResult, String metricUpdateResultDetailed) {
+        OpenApiRouteDefinitionLocatorProperties.Service service = retrievalResult.getService();
+        firstRetrievalFailures.remove(service);
+        storeCacheValidators(service, retrievalResult.getCacheValidators());
+        storeContentDigest(service, retrievalResult.getContentDigest());
+        boolean changed = METRIC_TAG_UPDATE_RESULT_DETAILED_SUCCESS_WITH_CHANGES.equals(metricUpdateResultDetailed);
+        if (changed) {
+            snapshotOutdated = true;
+        }
+        updateSchedule.recordSuccess(config, service, changed, Instant.now());
+        metricsRecordRetrievalResult(service, METRIC_TAG_UPDATE_RESULT_SUCCESS, metricUpdateResultDetailed,
+                retrievalResult.getStartNanoTime());
+    }
+
+    private void storeCacheValidators(
+            OpenApiRouteDefinitionLocatorProperties.Service service,
+            HttpCacheValidators validators
+    ) {
+        if (validators.isEmpty()) {
+            cacheValidators.remove(service);
+        } else {
+            cacheValidators.put(service, validators);
+        }
+    }
+
+    private void storeContentDigest(
+            OpenApiRouteDefinitionLocatorProperties.Service service,
+            Optional<String> contentDigest
+    ) {
+        contentDigest.ifPresent(digest -> {
+            if (!digest.equals(contentDigests.put(service, digest))) {
+                snapshotOutdated = true;
+            }
+            metrics.ifPresent(metrics1 -> metrics1.recordOpenApiDefinitionDigest(service.getId(), digest));
+        });
+    }
 
-            log.error("Keeping operations of {} despite retrieval/publishing failure. First failure was at {}. " +
-                      "That is less than {} ago. If attempts keep failing, operations of that service will be " +
-                      "de-registered after {}.", service.getId(), firstRetrievalFailure, removeAfterDuration,
-                      removeAfterInstant);
+    private void removeContentDigest(OpenApiRouteDefinitionLocatorProperties.Service service) {
+        contentDigests.remove(service);
+        metrics.ifPresent(metrics1 -> metrics1.removeOpenApiDefinitionDigest(service.getId()));
+    }
+
+    private void handleUpdateFailure(OpenApiRouteDefinitionLocatorProperties.Service service, Throwable e, long start) {
+        // The next retrieval must fetch the full definition so that the operations can be re-evaluated.
+        cacheValidators.remove(service);
+        List<OpenApiOperation> oldOpenApiOperations = operations.get(service);
+        String updateResultFailureDetailed = e instanceof OpenApiRouteDefinitionPublishException
+                ? METRIC_TAG_UPDATE_RESULT_DETAILED_FAILURE_PUBLICATION
+                : METRIC_TAG_UPDATE_RESULT_DETAILED_FAILURE_RETRIEVAL;
+        metricsRecordRetrievalResult(service, METRIC_TAG_UPDATE_RESULT_FAILURE, updateResultFailureDetailed, start);
+        log.error("Error while retrieving and publishing REST operations for {}", service.getId(), e);
+        Instant now = Instant.now();
+        updateSchedule.recordFailure(config, service, now);
+        Instant firstRetrievalFailure = firstRetrievalFailures.computeIfAbsent(service, k -> now);
+
+        if (CollectionUtils.isEmpty(oldOpenApiOperations)) {
+            log.error("Retrieving and publishing operations for {} keeps failing since {}. Currently, no operations for this " +
+                      "service are registered.", service.getId(), firstRetrievalFailure);
+            return;
         }
+
+        Duration removeAfterDuration = config.getUpdateScheduler().getRemoveRoutesOnUpdateFailuresAfter();
+        Instant removeAfterInstant = firstRetrievalFailure.plus(removeAfterDuration);
+
+        if (now.isAfter(removeAfterInstant)) {
+            operations.remove(service);
+            removeContentDigest(service);
+            snapshotOutdated = true;
+            log.error("De-registering operations of {}. First retrieval/publishing failure was at {}. " +
+                      "That is more than {} ago.", service.getId(), firstRetrievalFailure, removeAfterDuration);
+            try {
+                publishNewOpenApiOperations(List.of(service));
+            } catch (Exception publicationException) {
+                // The failure is already recorded above. Letting this exception escape would make the callers
+                // record it a second time.
+                log.error("Error while publishing the de-registration of the operations of {}", service.getId(),
+                        publicationException);
+            }
+            return;
+        }
+
+        log.error("Keeping operations of {} despite retrieval/publishing failure. First failure was at {}. " +
+                  "That is less than {} ago. If attempts keep failing, operations of that service will be " +
+                  "de-registered after {}.", service.getId(), firstRetrievalFailure, removeAfterDuration,
+                  removeAfterInstant);
     }
 
     private void metricsRecordRetrievalResult(
@@ -176,72 +624,67 @@ public class OpenApiDefinitionRepository implements ApplicationListener<RefreshR
         });
     }
 
-    private List<OpenApiOperation> getOperations(OpenApiRouteDefinitionLocatorProperties.Service service) {
-        String yaml = getOpenApiDefinitionAsYamlString(service);
-        OpenAPI openApi = parseOpenApiDefinition(yaml, service);
-        return getOperations(service, openApi);
-    }
-
-    private String getOpenApiDefinitionAsYamlString(OpenApiRouteDefinitionLocatorProperties.Service service) {
-        URI openApiDefinitionUri = firstNonNull(service.getOpenapiDefinitionUri(), config.getOpenapiDefinitionUri());
-        URI fullOpenApiDefinitionUri = service.getUri().resolve(openApiDefinitionUri);
-
-        log.info("Retrieving OpenAPI definition for {} from '{}'", service.getId(), fullOpenApiDefinitionUri);
-        Resource resource = resourceLoader.getResource(fullOpenApiDefinitionUri.toString());
-        try (InputStream is = resource.getInputStream()) {
-            return StreamUtils.copyToString(is, StandardCharsets.UTF_8);
-        } catch (IOException e) {
-            throw new RuntimeException(String.format("Error loading '%s'", fullOpenApiDefinitionUri), e);
-        }
-    }
-
-    private static OpenAPI parseOpenApiDefinition(String yaml, OpenApiRouteDefinitionLocatorProperties.Service service) {
-        SwaggerParseResult result = new OpenAPIParser().readContents(yaml, null, null);
-        String messages = StringUtils.defaultString(StringUtils.join(result.getMessages(), "; "));
-        OpenAPI openAPI = result.getOpenAPI();
-        if (openAPI == null) {
-            throw new IllegalArgumentException("Error while parsing OpenAPI definition: " + messages);
-        }
-        if (StringUtils.isNoneBlank(messages)) {
-            log.warn("Warnings while parsing OpenAPI definition of {}: {}", service, messages);
-        }
-        return openAPI;
+    List<OpenApiOperation> getOperations(OpenApiRouteDefinitionLocatorProperties.Service service, String content) {
+        ParsedOpenApiDefinition openApiDefinition = openApiDefinitionParser.parse(content, service);
+        return getOperations(service, openApiDefinition, DefinitionInterner.seededWith(operations.get(service)),
+                config.getParsing().getRetainedExtensions());
     }
 
-    private static List<OpenApiOperation> getOperations(OpenApiRouteDefinitionLocatorProperties.Service service, OpenAPI openApi) {
-        Optional<Map<String, Object>> globalGatewayRouteSettings = getGatewayRouteSettings(openApi.getExtensions());
+    private static List<OpenApiOperation> getOperations(
+            OpenApiRouteDefinitionLocatorProperties.Service service,
+            ParsedOpenApiDefinition openApiDefinition,
+            DefinitionInterner interner,
+            List<String> retainedExtensions
+    ) {
+        // Merged once up front, so that the merge results of all operations share the global settings.
+        Optional<Map<String, Object>> globalGatewayRouteSettings =
+                MapMerge.deepMerge(getGatewayRouteSettings(openApiDefinition.getExtensions()));
+        Map<String, Object> globalExtensions = interner.internExtensions(
+                retainExtensions(openApiDefinition.getExtensions(), retainedExtensions));
 
         List<OpenApiOperation> result = new ArrayList<>();
-        openApi.getPaths().forEach((path, pathItem) ->
-                pathItem.readOperationsMap().forEach((httpMethod, openApiOperation) -> {
-                    Optional<Map<String, Object>> operationGatewayRouteSettings = getGatewayRouteSettings(openApiOperation.getExtensions());
-                    Optional<Map<String, Object>> gatewayRouteSettings = MapMerge.deepMerge(globalGatewayRouteSettings, operationGatewayRouteSettings);
-
-                    List<FilterDefinition> filters = getFilters(gatewayRouteSettings);
-                    List<PredicateDefinition> predicates = getPredicates(gatewayRouteSettings);
-                    Optional<Map<String, Object>> metadata = getMetadata(gatewayRouteSettings);
-                    Optional<Integer> order = getOrder(gatewayRouteSettings);
-
-                    OpenApiOperation operation = OpenApiOperation.builder()
-                            .baseUri(service.getUri())
-                            .httpMethod(map(httpMethod))
-                            .path(path)
-                            .filters(filters)
-                            .predicates(predicates)
-                            .metadata(metadata)
-                            .order(order)
-                            .openApiExtension(firstNonNull(openApi.getExtensions(), Collections.emptyMap()))
-                            .openApiOperationExtension(firstNonNull(openApiOperation.getExtensions(), Collections.emptyMap()))
-                            .build();
-
-                    result.add(operation);
-                })
-        );
+        openApiDefinition.getOperations().forEach(openApiOperation -> {
+            Optional<Map<String, Object>> operationGatewayRouteSettings = getGatewayRouteSettings(openApiOperation.getExtensions());
+            Optional<Map<String, Object>> gatewayRouteSettings = MapMerge.deepMerge(globalGatewayRouteSettings, operationGatewayRouteSettings);
+
+            List<FilterDefinition> filters = interner.internFilters(getFilters(gatewayRouteSettings));
+            List<PredicateDefinition> predicates = interner.internPredicates(getPredicates(gatewayRouteSettings));
+            Optional<Map<String, Object>> metadata = getMetadata(gatewayRouteSettings);
+            Optional<Integer> order = getOrder(gatewayRouteSettings);
+
+            OpenApiOperation operation = OpenApiOperation.builder()
+                    .baseUri(service.getUri())
+                    .httpMethod(openApiOperation.getHttpMethod())
+                    .path(openApiOperation.getPath())
+                    .filters(filters)
+                    .predicates(predicates)
+                    .metadata(metadata)
+                    .order(order)
+                    .openApiExtension(globalExtensions)
+                    .openApiOperationExtension(interner.internExtensions(
+                            retainExtensions(openApiOperation.getExtensions(), retainedExtensions)))
+                    .build();
+
+            result.add(operation);
+        });
         return result;
     }
 
-    private static HttpMethod map(PathItem.HttpMethod method) {
-        return HttpMethod.valueOf(method.name());
+    /**
+     * Returns a copy of the given extensions which only contains the retained extensions. All extensions are retained
+     * if no retained extensions are configured.
+     */
+    private static Map<String, Object> retainExtensions(Map<String, Object> extensions, List<String> retainedExtensions) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        if (extensions == null) {
+            return result;
+        }
+        extensions.forEach((key, value) -> {
+            if (retainedExtensions.isEmpty() || retainedExtensions.contains(key)) {
+                result.put(key, value);
+            }
+        });
+        return result;
     }
 
     private static Optional<Map<String, Object>> getGatewayRouteSettings(Map<String, Object> extensions) {
@@ -363,25 +806,44 @@ public class OpenApiDefinitionRepository implements ApplicationListener<RefreshR
             List<OpenApiOperation> oldOpenApiOperations
     ) {
         try {
-            publishNewOpenApiOperations(service);
+            publishNewOpenApiOperations(List.of(service));
         } catch (Exception e) {
             if (oldOpenApiOperations == null) {
                 operations.remove(service);
             } else {
                 operations.put(service, oldOpenApiOperations);
             }
-            publishNewOpenApiOperations(service);
+            publishNewOpenApiOperations(List.of(service));
             throw e;
         }
     }
 
-    private void publishNewOpenApiOperations(OpenApiRouteDefinitionLocatorProperties.Service service) {
+    /**
+     * Publishes the route definitions of the given services. If scoped route refreshes are enabled and only one
+     * service is affected, only the routes of that service are reloaded by Spring Cloud Gateway. Routes ordered by
+     * hit count are always reloaded completely, because a scoped refresh does not keep the order of the routes.
+     */
+    private void publishNewOpenApiOperations(List<OpenApiRouteDefinitionLocatorProperties.Service> services) {
         lastRouteDefinitionPublicationFailureCause = null;
-        applicationEventPublisher.publishEvent(new RefreshRoutesEvent(this));
+        applicationEventPublisher.publishEvent(toRefreshRoutesEvent(services));
         if (lastRouteDefinitionPublicationFailureCause != null) {
             throw new OpenApiRouteDefinitionPublishException(String.format("Error while publishing route" +
-                    " definitions for %s", service.getId()), lastRouteDefinitionPublicationFailureCause);
+                    " definitions for %s", toServiceIds(services)), lastRouteDefinitionPublicationFailureCause);
+        }
+    }
+
+    private RefreshRoutesEvent toRefreshRoutesEvent(List<OpenApiRouteDefinitionLocatorProperties.Service> services) {
+        if (config.getUpdateScheduler().isScopedRouteRefresh() && !config.isOrderRoutesByHitCount() && services.size() == 1) {
+            return new RefreshRoutesEvent(this, Map.of(
+                    OpenApiRouteDefinitionLocator.METADATA_KEY_SERVICE_ID, services.get(0).getId()));
         }
+        return new RefreshRoutesEvent(this);
+    }
+
+    private static String toServiceIds(List<OpenApiRouteDefinitionLocatorProperties.Service> services) {
+        return services.stream()
+                .map(OpenApiRouteDefinitionLocatorProperties.Service::getId)
+                .collect(Collectors.joining(", "));
     }
 
     @Override
@@ -397,4 +859,23 @@ public class OpenApiDefinitionRepository implements ApplicationListener<RefreshR
             lastRouteDefinitionPublicationFailureCause = event.getThrowable();
         }
     }
+
+    /**
+     * Result of retrieving and parsing the OpenAPI definition of a service. The operations are empty if the
+     * service responded with {@code 304 Not Modified} or the definition's digest is unchanged.
+     */
+    @Value
+    private static class RetrievalResult {
+        OpenApiRouteDefinitionLocatorProperties.Service service;
+        Optional<List<OpenApiOperation>> operations;
+        Optional<String> contentDigest;
+        HttpCacheValidators cacheValidators;
+        long startNanoTime;
+
+        /**
+         * Whether applying this result succeeded. Empty until it is applied. A result shared by several callers is
+         * only applied once.
+         */
+        AtomicReference<Boolean> updateSuccessful = new AtomicReference<>();
+    }
 }
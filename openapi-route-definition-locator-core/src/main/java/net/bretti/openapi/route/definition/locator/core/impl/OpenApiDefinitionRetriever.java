@@ -0,0 +1,288 @@
+/*
+ * Copyright (c) 2022 Jan Bretschneider <mail@jan-bretschneider.de>
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You can find the License in the `LICENSE` file at the top level of
+ * this repository or may obtain a copy at
+ *
+ *   https://raw.githubusercontent.com/jbretsch/openapi-route-definition-locator/master/LICENSE
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package net.bretti.openapi.route.definition.locator.core.impl;
+
+import io.netty.channel.ChannelOption;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import net.bretti.openapi.route.definition.locator.core.config.OpenApiRouteDefinitionLocatorProperties;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.client.HttpClientRequest;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URLConnection;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.apache.commons.lang3.ObjectUtils.firstNonNull;
+
+/**
+ * Retrieves the OpenAPI definitions of the configured services. Definitions are loaded via Spring's
+ * {@link ResourceLoader} unless a {@link WebClient} is given and the definition is served via {@code http:}
+ * or {@code https:}. In the latter case the definition is retrieved without blocking a thread. Conditional requests
+ * are supported for {@code http:} and {@code https:} with both.
+ */
+@Slf4j
+public class OpenApiDefinitionRetriever implements DisposableBean {
+
+    private static final String CONNECTION_PROVIDER_NAME = "openapi-definition-retrieval";
+
+    private final OpenApiRouteDefinitionLocatorProperties config;
+    private final ResourceLoader resourceLoader;
+    private final Optional<ConnectionProvider> connectionProvider;
+    private final Optional<WebClient.Builder> webClientBuilder;
+
+    /**
+     * The connect timeout can only be set per {@link HttpClient}, so there is one {@link WebClient} for each
+     * configured connect timeout. All of them share the pooled connections of {@link #connectionProvider}.
+     */
+    private final ConcurrentHashMap<Duration, WebClient> webClients = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a retriever which uses {@link WebClient}s built from the given builder for {@code http:} and
+     * {@code https:} URIs, if any. The connections of those clients are pooled by the retriever and released when it
+     * is destroyed.
+     */
+    public OpenApiDefinitionRetriever(
+            OpenApiRouteDefinitionLocatorProperties config,
+            ResourceLoader resourceLoader,
+            Optional<WebClient.Builder> webClientBuilder
+    ) {
+        this.config = config;
+        this.resourceLoader = resourceLoader;
+        this.connectionProvider = webClientBuilder.map(builder -> ConnectionProvider.create(CONNECTION_PROVIDER_NAME));
+        this.webClientBuilder = webClientBuilder;
+    }
+
+    private WebClient getWebClient(Duration connectTimeout) {
+        return webClients.computeIfAbsent(connectTimeout, timeout -> webClientBuilder.get().clone()
+                .clientConnector(new ReactorClientHttpConnector(createHttpClient(connectionProvider.get(), timeout)))
+                .build());
+    }
+
+    private static HttpClient createHttpClient(ConnectionProvider connectionProvider, Duration connectTimeout) {
+        return HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, toIntSaturated(connectTimeout.toMillis()))
+                .followRedirect(true);
+    }
+
+    @Override
+    public void destroy() {
+        connectionProvider.ifPresent(ConnectionProvider::dispose);
+    }
+
+    /**
+     * Retrieves the OpenAPI definition of the given service. If cache validators of a previous retrieval are given
+     * and conditional requests are enabled, they are sent along so that the server can answer with
+     * {@code 304 Not Modified}. Then the returned definition has no content. Retrievals exceeding the configured
+     * timeouts or maximum size fail.
+     */
+    Mono<RetrievedOpenApiDefinition> retrieve(
+            OpenApiRouteDefinitionLocatorProperties.Service service,
+            Optional<HttpCacheValidators> cacheValidators
+    ) {
+        URI openApiDefinitionUri = firstNonNull(service.getOpenapiDefinitionUri(), config.getOpenapiDefinitionUri());
+        URI fullOpenApiDefinitionUri = service.getUri().resolve(openApiDefinitionUri);
+        Limits limits = getLimits(service);
+
+        log.info("Retrieving OpenAPI definition for {} from '{}'", service.getId(), fullOpenApiDefinitionUri);
+        Optional<HttpCacheValidators> validators = cacheValidators
+                .filter(it -> config.getRetrieval().isConditionalRequests());
+        if (webClientBuilder.isPresent() && isHttpUri(fullOpenApiDefinitionUri)) {
+            return retrieveViaWebClient(getWebClient(limits.getConnectTimeout()), fullOpenApiDefinitionUri, validators,
+                    limits);
+        }
+        return Mono.fromCallable(() -> retrieveViaResourceLoader(fullOpenApiDefinitionUri, validators, limits));
+    }
+
+    private Limits getLimits(OpenApiRouteDefinitionLocatorProperties.Service service) {
+        OpenApiRouteDefinitionLocatorProperties.ServiceRetrieval serviceRetrieval = service.getRetrieval();
+        OpenApiRouteDefinitionLocatorProperties.Retrieval retrieval = config.getRetrieval();
+        return new Limits(
+                firstNonNull(serviceRetrieval.getConnectTimeout(), retrieval.getConnectTimeout()),
+                firstNonNull(serviceRetrieval.getReadTimeout(), retrieval.getReadTimeout()),
+                firstNonNull(serviceRetrieval.getMaxDefinitionSize(), retrieval.getMaxDefinitionSize()).toBytes());
+    }
+
+    private static boolean isHttpUri(URI uri) {
+        return "http".equalsIgnoreCase(uri.getScheme()) || "https".equalsIgnoreCase(uri.getScheme());
+    }
+
+    private static Mono<RetrievedOpenApiDefinition> retrieveViaWebClient(
+            WebClient webClient,
+            URI uri,
+            Optional<HttpCacheValidators> cacheValidators,
+            Limits limits
+    ) {
+        return webClient.get()
+                .uri(uri)
+                .headers(headers -> cacheValidators.ifPresent(validators -> {
+                    validators.getETag().ifPresent(eTag -> headers.set(HttpHeaders.IF_NONE_MATCH, eTag));
+                    validators.getLastModified().ifPresent(lastModified -> headers.set(HttpHeaders.IF_MODIFIED_SINCE, lastModified));
+                }))
+                .httpRequest(httpRequest -> {
+                    Object nativeRequest = httpRequest.getNativeRequest();
+                    if (nativeRequest instanceof HttpClientRequest) {
+                        ((HttpClientRequest) nativeRequest).responseTimeout(limits.getReadTimeout());
+                    }
+                })
+                .exchangeToMono(response -> {
+                    HttpHeaders responseHeaders = response.headers().asHttpHeaders();
+                    HttpCacheValidators responseCacheValidators = new HttpCacheValidators(
+                            Optional.ofNullable(responseHeaders.getETag()),
+                            Optional.ofNullable(responseHeaders.getFirst(HttpHeaders.LAST_MODIFIED)));
+
+                    if (response.statusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED) && cacheValidators.isPresent()) {
+                        return response.releaseBody()
+                                .thenReturn(RetrievedOpenApiDefinition.notModified(cacheValidators.get()));
+                    }
+                    if (!response.statusCode().is2xxSuccessful()) {
+                        return response.createException().flatMap(Mono::error);
+                    }
+                    if (responseHeaders.getContentLength() > limits.getMaxDefinitionSize()) {
+                        return response.releaseBody()
+                                .then(Mono.<RetrievedOpenApiDefinition>error(tooLarge(limits)));
+                    }
+                    return DataBufferUtils.join(response.bodyToFlux(DataBuffer.class), toIntSaturated(limits.getMaxDefinitionSize()))
+                            .onErrorMap(DataBufferLimitException.class, e -> tooLarge(limits))
+                            .map(OpenApiDefinitionRetriever::toBytesAndRelease)
+                            .defaultIfEmpty(new byte[0])
+                            .map(content -> RetrievedOpenApiDefinition.of(content, responseCacheValidators));
+                })
+                .onErrorMap(e -> new RuntimeException(String.format("Error loading '%s'", uri), e));
+    }
+
+    private static byte[] toBytesAndRelease(DataBuffer dataBuffer) {
+        try {
+            byte[] bytes = new byte[dataBuffer.readableByteCount()];
+            dataBuffer.read(bytes);
+            return bytes;
+        } finally {
+            DataBufferUtils.release(dataBuffer);
+        }
+    }
+
+    private RetrievedOpenApiDefinition retrieveViaResourceLoader(
+            URI uri,
+            Optional<HttpCacheValidators> cacheValidators,
+            Limits limits
+    ) {
+        Resource resource = resourceLoader.getResource(uri.toString());
+        try {
+            if (isHttpUri(uri)) {
+                return retrieveViaUrlConnection(resource, cacheValidators, limits);
+            }
+            try (InputStream is = resource.getInputStream()) {
+                return RetrievedOpenApiDefinition.of(readAtMost(is, limits));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(String.format("Error loading '%s'", uri), e);
+        }
+    }
+
+    /**
+     * Retrieves the given {@code http:} or {@code https:} resource with the configured timeouts. The given cache
+     * validators are sent along as conditional request headers. Responses announcing a content length above the
+     * maximum size are rejected right away.
+     */
+    private static RetrievedOpenApiDefinition retrieveViaUrlConnection(
+            Resource resource,
+            Optional<HttpCacheValidators> cacheValidators,
+            Limits limits
+    ) throws IOException {
+        URLConnection connection = resource.getURL().openConnection();
+        connection.setConnectTimeout(toIntSaturated(limits.getConnectTimeout().toMillis()));
+        connection.setReadTimeout(toIntSaturated(limits.getReadTimeout().toMillis()));
+        cacheValidators.ifPresent(validators -> {
+            validators.getETag().ifPresent(eTag -> connection.setRequestProperty(HttpHeaders.IF_NONE_MATCH, eTag));
+            validators.getLastModified().ifPresent(lastModified ->
+                    connection.setRequestProperty(HttpHeaders.IF_MODIFIED_SINCE, lastModified));
+        });
+        try {
+            if (cacheValidators.isPresent() && connection instanceof HttpURLConnection
+                    && ((HttpURLConnection) connection).getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                connection.getInputStream().close();
+                return RetrievedOpenApiDefinition.notModified(cacheValidators.get());
+            }
+            try (InputStream is = connection.getInputStream()) {
+                if (connection.getContentLengthLong() > limits.getMaxDefinitionSize()) {
+                    throw tooLarge(limits);
+                }
+                HttpCacheValidators responseCacheValidators = new HttpCacheValidators(
+                        Optional.ofNullable(connection.getHeaderField(HttpHeaders.ETAG)),
+                        Optional.ofNullable(connection.getHeaderField(HttpHeaders.LAST_MODIFIED)));
+                return RetrievedOpenApiDefinition.of(readAtMost(is, limits), responseCacheValidators);
+            }
+        } catch (IOException e) {
+            if (connection instanceof HttpURLConnection) {
+                ((HttpURLConnection) connection).disconnect();
+            }
+            throw e;
+        }
+    }
+
+    private static byte[] readAtMost(InputStream is, Limits limits) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[StreamUtils.BUFFER_SIZE];
+        long totalBytesRead = 0;
+        int bytesRead;
+        while ((bytesRead = is.read(buffer)) != -1) {
+            totalBytesRead += bytesRead;
+            if (totalBytesRead > limits.getMaxDefinitionSize()) {
+                throw tooLarge(limits);
+            }
+            out.write(buffer, 0, bytesRead);
+        }
+        return out.toByteArray();
+    }
+
+    private static IOException tooLarge(Limits limits) {
+        return new IOException(String.format("OpenAPI definition exceeds the maximum size of %d bytes",
+                limits.getMaxDefinitionSize()));
+    }
+
+    private static int toIntSaturated(long value) {
+        return (int) Math.min(value, Integer.MAX_VALUE);
+    }
+
+    @Value
+    private static class Limits {
+        Duration connectTimeout;
+        Duration readTimeout;
+        long maxDefinitionSize;
+    }
+}
@@ -19,16 +19,36 @@
 package net.bretti.openapi.route.definition.locator.core.impl;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.scheduling.annotation.Scheduled;
+import net.bretti.openapi.route.definition.locator.core.config.OpenApiRouteDefinitionLocatorProperties;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
 
+import java.time.Duration;
+
+/**
+ * Regularly checks which services are due for a retrieval of their OpenAPI definitions and updates their operations.
+ * The check interval is the smallest configured fixed delay, but at most one second.
+ */
 @RequiredArgsConstructor
-public class OpenApiDefinitionUpdateScheduler {
+public class OpenApiDefinitionUpdateScheduler implements SchedulingConfigurer {
+
+    private static final Duration MAX_CHECK_INTERVAL = Duration.ofSeconds(1);
 
     private final OpenApiDefinitionRepository openApiDefinitionRepository;
+    private final OpenApiRouteDefinitionLocatorProperties config;
+
+    @Override
+    public void configureTasks(@NonNull ScheduledTaskRegistrar taskRegistrar) {
+        taskRegistrar.addFixedDelayTask(openApiDefinitionRepository::getOpenApiDefinitions, getCheckInterval());
+    }
 
-    @Scheduled(fixedDelayString = "#{@openApiRouteDefinitionLocatorProperties.getUpdateScheduler().getFixedDelay().toMillis()}")
-    private void getOpenApiDefinitions() {
-        openApiDefinitionRepository.getOpenApiDefinitions();
+    private Duration getCheckInterval() {
+        return config.getServices().stream()
+                .map(service -> UpdateSchedule.getFixedDelay(config, service))
+                .filter(fixedDelay -> fixedDelay.compareTo(MAX_CHECK_INTERVAL) < 0 && !fixedDelay.isZero())
+                .min(Duration::compareTo)
+                .orElse(MAX_CHECK_INTERVAL);
     }
 
 }
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2022 Jan Bretschneider <mail@jan-bretschneider.de>
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You can find the License in the `LICENSE` file at the top level of
+ * this repository or may obtain a copy at
+ *
+ *   https://raw.githubusercontent.com/jbretsch/openapi-route-definition-locator/master/LICENSE
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package net.bretti.openapi.route.definition.locator.core.impl;
+
+import lombok.RequiredArgsConstructor;
+import net.bretti.openapi.route.definition.locator.core.config.OpenApiRouteDefinitionLocatorProperties;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Actuator endpoint to refresh the operations of a single service right away, e.g. after it was deployed.
+ * {@code POST /actuator/openapidefinitions/{serviceId}} retrieves the service's OpenAPI definition and publishes
+ * its operations if they changed.
+ */
+@Endpoint(id = "openapidefinitions")
+@RequiredArgsConstructor
+public class OpenApiDefinitionsEndpoint {
+
+    private final OpenApiDefinitionRepository openApiDefinitionRepository;
+    private final OpenApiRouteDefinitionLocatorProperties config;
+
+    @WriteOperation
+    public Mono<Map<String, Object>> refresh(@Selector String serviceId) {
+        OpenApiRouteDefinitionLocatorProperties.Service service = config.getServices().stream()
+                .filter(service1 -> service1.getId().equals(serviceId))
+                .findFirst()
+                .orElseThrow(() -> new InvalidEndpointRequestException(
+                        String.format("Unknown service '%s'", serviceId), "Unknown service"));
+
+        return openApiDefinitionRepository.refreshOperations(service)
+                .map(success -> {
+                    Map<String, Object> result = new LinkedHashMap<>();
+                    result.put("serviceId", serviceId);
+                    result.put("success", success);
+                    result.put("registeredOperations", openApiDefinitionRepository.getRegisteredOperationsCount(service));
+                    return result;
+                });
+    }
+
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2022 Jan Bretschneider <mail@jan-bretschneider.de>
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You can find the License in the `LICENSE` file at the top level of
+ * this repository or may obtain a copy at
+ *
+ *   https://raw.githubusercontent.com/jbretsch/openapi-route-definition-locator/master/LICENSE
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package net.bretti.openapi.route.definition.locator.core.impl;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.cloud.gateway.config.GlobalCorsProperties;
+import org.springframework.cloud.gateway.handler.FilteringWebHandler;
+import org.springframework.cloud.gateway.handler.RoutePredicateHandlerMapping;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.core.env.Environment;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * A {@link RoutePredicateHandlerMapping} which only evaluates the predicates of routes which the
+ * {@link OpenApiRoutePathIndex} reports as candidates for the request path. Routes are still evaluated in the
+ * order of the gateway's {@link RouteLocator}, so the first matching route is the same as without the index.
+ */
+public class OpenApiIndexedRoutePredicateHandlerMapping extends RoutePredicateHandlerMapping {
+
+    private final OpenApiRoutePathIndex routePathIndex;
+
+    public OpenApiIndexedRoutePredicateHandlerMapping(
+            FilteringWebHandler webHandler,
+            RouteLocator routeLocator,
+            GlobalCorsProperties globalCorsProperties,
+            Environment environment,
+            OpenApiRoutePathIndex routePathIndex
+    ) {
+        super(webHandler, new CandidateRouteLocator(routeLocator), globalCorsProperties, environment);
+        this.routePathIndex = routePathIndex;
+    }
+
+    @Override
+    protected Mono<Route> lookupRoute(ServerWebExchange exchange) {
+        // The Path predicate matches the raw path of the request URI, which includes a context path, if any.
+        OpenApiRoutePathIndex.Candidates candidates =
+                routePathIndex.findCandidates(PathContainer.parsePath(exchange.getRequest().getURI().getRawPath()));
+        return super.lookupRoute(exchange)
+                .contextWrite(context -> context.put(OpenApiRoutePathIndex.Candidates.class, candidates));
+    }
+
+    /**
+     * Skips the routes which are no candidates for the request whose route is currently looked up.
+     */
+    @RequiredArgsConstructor
+    private static class CandidateRouteLocator implements RouteLocator {
+        private final RouteLocator delegate;
+
+        @Override
+        public Flux<Route> getRoutes() {
+            return Flux.deferContextual(context -> context.<OpenApiRoutePathIndex.Candidates>getOrEmpty(OpenApiRoutePathIndex.Candidates.class)
+                    .map(candidates -> delegate.getRoutes().filter(route -> candidates.isCandidate(route.getId())))
+                    .orElseGet(delegate::getRoutes));
+        }
+    }
+}
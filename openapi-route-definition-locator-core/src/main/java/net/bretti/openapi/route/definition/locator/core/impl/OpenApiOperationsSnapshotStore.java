@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2022 Jan Bretschneider <mail@jan-bretschneider.de>
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You can find the License in the `LICENSE` file at the top level of
+ * this repository or may obtain a copy at
+ *
+ *   https://raw.githubusercontent.com/jbretsch/openapi-route-definition-locator/master/LICENSE
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package net.bretti.openapi.route.definition.locator.core.impl;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.swagger.v3.parser.OpenAPIV3Parser;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.bretti.openapi.route.definition.locator.core.config.OpenApiRouteDefinitionLocatorProperties;
+import org.springframework.cloud.gateway.filter.FilterDefinition;
+import org.springframework.cloud.gateway.handler.predicate.PredicateDefinition;
+import org.springframework.http.HttpMethod;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Persists the last successfully published operations of all services to a local file, so that they can be
+ * registered right away when the gateway starts. The file is replaced atomically, so a crash while writing never
+ * leaves a partially written snapshot behind. The content digest of each service is stored together with a
+ * fingerprint of the settings and versions its operations were extracted with. Then a digest is only trusted as long
+ * as the operations would still be extracted the same way.
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class OpenApiOperationsSnapshotStore {
+    static final int SNAPSHOT_VERSION = 1;
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private final Path file;
+
+    /**
+     * Loads the snapshot. Returns an empty map if there is no snapshot or it cannot be read.
+     */
+    Map<String, ServiceSnapshot> load() {
+        if (!Files.isRegularFile(file)) {
+            log.info("No snapshot of OpenAPI operations found at '{}'", file);
+            return Map.of();
+        }
+
+        try {
+            Snapshot snapshot = OBJECT_MAPPER.readValue(file.toFile(), Snapshot.class);
+            if (snapshot.getVersion() != SNAPSHOT_VERSION) {
+                log.warn("Ignoring snapshot of OpenAPI operations at '{}' with unsupported version {}", file,
+                        snapshot.getVersion());
+                return Map.of();
+            }
+            return Optional.ofNullable(snapshot.getServices()).orElse(Map.of());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring unreadable snapshot of OpenAPI operations at '{}'", file, e);
+            return Map.of();
+        }
+    }
+
+    void write(
+            Map<OpenApiRouteDefinitionLocatorProperties.Service, List<OpenApiOperation>> operations,
+            Map<OpenApiRouteDefinitionLocatorProperties.Service, String> contentDigests,
+            Function<OpenApiRouteDefinitionLocatorProperties.Service, String> extractionFingerprints
+    ) {
+        Map<String, ServiceSnapshot> services = new HashMap<>();
+        operations.forEach((service, serviceOperations) -> services.put(service.getId(), new ServiceSnapshot(
+                contentDigests.get(service),
+                extractionFingerprints.apply(service),
+                serviceOperations.stream().map(OperationSnapshot::of).collect(Collectors.toList()))));
+
+        try {
+            Path directory = file.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path tempFile = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            try {
+                OBJECT_MAPPER.writeValue(tempFile.toFile(), new Snapshot(SNAPSHOT_VERSION, services));
+                moveAtomically(tempFile, file);
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+            log.debug("Wrote snapshot of OpenAPI operations of {} services to '{}'", services.size(), file);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Error while writing snapshot of OpenAPI operations to '{}'", file, e);
+        }
+    }
+
+    /**
+     * Identifies everything apart from the OpenAPI definition itself that determines the operations extracted for
+     * the given service: the versions of this library and of swagger-parser, the parsing engine, the parse options
+     * and the retained extensions.
+     */
+    static String extractionFingerprint(
+            OpenApiRouteDefinitionLocatorProperties config,
+            OpenApiRouteDefinitionLocatorProperties.Service service
+    ) {
+        OpenApiRouteDefinitionLocatorProperties.Parsing parsing = config.getParsing();
+        return String.join(";",
+                "library=" + getImplementationVersion(OpenApiOperationsSnapshotStore.class),
+                "swagger-parser=" + getImplementationVersion(OpenAPIV3Parser.class),
+                "engine=" + parsing.getEngine(),
+                "parse-options=" + parsing.getParseOptions() + "," + service.getParseOptions(),
+                "retained-extensions=" + parsing.getRetainedExtensions());
+    }
+
+    private static String getImplementationVersion(Class<?> type) {
+        return Optional.ofNullable(type.getPackage().getImplementationVersion()).orElse("unknown");
+    }
+
+    private static void moveAtomically(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    static class Snapshot {
+        private int version;
+        private Map<String, ServiceSnapshot> services;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    static class ServiceSnapshot {
+        /**
+         * Digest of the OpenAPI definition the operations were created from.
+         */
+        private String contentDigest;
+
+        /**
+         * Fingerprint of the settings the operations were extracted with. See {@link #extractionFingerprint}.
+         */
+        private String extractionFingerprint;
+        private List<OperationSnapshot> operations;
+
+        List<OpenApiOperation> toOpenApiOperations(OpenApiRouteDefinitionLocatorProperties.Service service) {
+            return operations.stream()
+                    .map(operation -> operation.toOpenApiOperation(service))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    static class OperationSnapshot {
+        private String path;
+        private String httpMethod;
+        private List<FilterDefinition> filters;
+        private List<PredicateDefinition> predicates;
+        private Integer order;
+        private Map<String, Object> metadata;
+        private Map<String, Object> openApiExtension;
+        private Map<String, Object> openApiOperationExtension;
+
+        static OperationSnapshot of(OpenApiOperation operation) {
+            return new OperationSnapshot(
+                    operation.getPath(),
+                    operation.getHttpMethod().name(),
+                    operation.getFilters(),
+                    operation.getPredicates(),
+                    operation.getOrder().orElse(null),
+                    operation.getMetadata().orElse(null),
+                    operation.getOpenApiExtension(),
+                    operation.getOpenApiOperationExtension());
+        }
+
+        OpenApiOperation toOpenApiOperation(OpenApiRouteDefinitionLocatorProperties.Service service) {
+            return OpenApiOperation.builder()
+                    .baseUri(service.getUri())
+                    .path(path)
+                    .httpMethod(HttpMethod.valueOf(httpMethod))
+                    .filters(filters)
+                    .predicates(predicates)
+                    .order(Optional.ofNullable(order))
+                    .metadata(Optional.ofNullable(metadata))
+                    .openApiExtension(openApiExtension)
+                    .openApiOperationExtension(openApiOperationExtension)
+                    .build();
+        }
+    }
+}
@@ -19,27 +19,47 @@
 package net.bretti.openapi.route.definition.locator.core.impl;
 
 import lombok.RequiredArgsConstructor;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 import net.bretti.openapi.route.definition.locator.core.config.OpenApiRouteDefinitionLocatorProperties;
 import net.bretti.openapi.route.definition.locator.core.customizer.OpenApiRouteDefinitionCustomizer;
 import net.bretti.openapi.route.definition.locator.core.impl.utils.MapMerge;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
 import org.springframework.cloud.gateway.filter.FilterDefinition;
 import org.springframework.cloud.gateway.handler.predicate.PredicateDefinition;
 import org.springframework.cloud.gateway.route.RouteDefinition;
 import org.springframework.cloud.gateway.route.RouteDefinitionLocator;
+import org.springframework.context.ApplicationListener;
+import org.springframework.lang.NonNull;
 import reactor.core.publisher.Flux;
 
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 import static net.bretti.openapi.route.definition.locator.core.impl.utils.Optionals.firstPresent;
 
 @RequiredArgsConstructor
 @Slf4j
-public class OpenApiRouteDefinitionLocator implements RouteDefinitionLocator {
+public class OpenApiRouteDefinitionLocator implements RouteDefinitionLocator, ApplicationListener<EnvironmentChangeEvent> {
+
+    /**
+     * Key of the route metadata entry holding the ID of the service a route was created for. Only set if scoped
+     * route refreshes are enabled.
+     */
+    public static final String METADATA_KEY_SERVICE_ID = "openapi-route-definition-locator-service-id";
+
+    private static final String PROPERTIES_PREFIX = "openapi-route-definition-locator.";
 
     private final OpenApiDefinitionRepository repository;
 
@@ -47,52 +67,265 @@ public class OpenApiRouteDefinitionLocator implements RouteDefinitionLocator {
 
     private final OpenApiRouteDefinitionLocatorProperties properties;
 
+    private final Optional<OpenApiRoutePathIndex> routePathIndex;
+
+    private final Optional<OpenApiRouteHitCounter> routeHitCounter;
+
+    /**
+     * The settings the route definitions of each service are created from. They are combined once per service and
+     * dropped when the configuration properties change, so that they are combined again from the rebound properties.
+     */
+    private final ConcurrentHashMap<OpenApiRouteDefinitionLocatorProperties.Service, RouteDefinitionSettings> routeDefinitionSettings =
+            new ConcurrentHashMap<>();
+
+    /**
+     * The route definitions materialized for each service together with the list of operations and the settings they
+     * were created from. The repository stores a new list whenever the operations of a service change, so the
+     * identity of that list serves as the generation of the service's operations. Likewise, the identity of the
+     * settings changes whenever they are combined again after the configuration properties changed.
+     */
+    private final ConcurrentHashMap<OpenApiRouteDefinitionLocatorProperties.Service, CachedRouteDefinitions> routeDefinitionsCache =
+            new ConcurrentHashMap<>();
+
     @Override
     public Flux<RouteDefinition> getRouteDefinitions() {
-        List<RouteDefinition> routeDefinitions = new ArrayList<>();
-        repository.getOperations().forEach((service, operations) -> operations.forEach(operation -> {
-            RouteDefinition routeDefinition = new RouteDefinition();
-            routeDefinition.setId(UUID.randomUUID().toString());
-            routeDefinition.setUri(operation.getBaseUri());
-
-            PredicateDefinition pathPredicate = new PredicateDefinition("Path=" + operation.getPath());
-            PredicateDefinition methodPredicate = new PredicateDefinition("Method=" + operation.getHttpMethod());
-
-            List<PredicateDefinition> predicates = new ArrayList<>();
-            predicates.add(methodPredicate);
-            predicates.add(pathPredicate);
-            predicates.addAll(properties.getDefaultRouteSettings().getPredicates());
-            predicates.addAll(service.getDefaultRouteSettings().getPredicates());
-            predicates.addAll(operation.getPredicates());
-            routeDefinition.setPredicates(predicates);
-
-            List<FilterDefinition> filters = new ArrayList<>();
-            filters.addAll(properties.getDefaultRouteSettings().getFilters());
-            filters.addAll(service.getDefaultRouteSettings().getFilters());
-            filters.addAll(operation.getFilters());
-            routeDefinition.setFilters(filters);
-
-            firstPresent(
-                    operation.getOrder(),
-                    service.getDefaultRouteSettings().getOrder(),
-                    properties.getDefaultRouteSettings().getOrder()
-            ).ifPresent(routeDefinition::setOrder);
-
-            Optional<Map<String, Object>> metaData = MapMerge.deepMerge(
-                    Optional.of(properties.getDefaultRouteSettings().getMetadata()),
-                    Optional.of(service.getDefaultRouteSettings().getMetadata()),
-                    operation.getMetadata()
-            );
-            metaData.ifPresent(routeDefinition::setMetadata);
+        Map<OpenApiRouteDefinitionLocatorProperties.Service, List<OpenApiOperation>> operations = repository.getOperations();
+        routeDefinitionsCache.keySet().retainAll(operations.keySet());
+        routeDefinitionSettings.keySet().retainAll(operations.keySet());
+
+        List<RouteDefinition> allRouteDefinitions = new ArrayList<>();
+        operations.forEach((service, serviceOperations) ->
+                allRouteDefinitions.addAll(getRouteDefinitions(service, serviceOperations)));
+        List<RouteDefinition> routeDefinitions = routeHitCounter
+                .map(counter -> counter.orderByHitCount(allRouteDefinitions))
+                .orElse(allRouteDefinitions);
+        routePathIndex.ifPresent(index -> index.update(routeDefinitions));
+
+        return Flux.fromIterable(routeDefinitions);
+    }
+
+    private List<RouteDefinition> getRouteDefinitions(
+            OpenApiRouteDefinitionLocatorProperties.Service service,
+            List<OpenApiOperation> operations
+    ) {
+        RouteDefinitionSettings settings = routeDefinitionSettings.computeIfAbsent(service, this::createRouteDefinitionSettings);
+        CachedRouteDefinitions cached = routeDefinitionsCache.get(service);
+        if (cached != null && cached.getOperations() == operations && cached.getSettings() == settings) {
+            return cached.getRouteDefinitions();
+        }
+
+        log.debug("Creating route definitions for {} operations of {}", operations.size(), service.getId());
+        EffectiveRouteSettings defaultRouteSettings = settings.getDefaultRouteSettings();
+        List<RouteDefinition> routeDefinitions = new ArrayList<>(operations.size());
+        if (settings.isConsolidateRoutes()) {
+            consolidate(operations).forEach(consolidatedOperations -> routeDefinitions.add(
+                    toRouteDefinition(service, defaultRouteSettings, consolidatedOperations)));
+        } else {
+            operations.forEach(operation -> routeDefinitions.add(
+                    toRouteDefinition(service, defaultRouteSettings, List.of(operation))));
+        }
+        routeDefinitionsCache.put(service,
+                new CachedRouteDefinitions(operations, settings, Collections.unmodifiableList(routeDefinitions)));
+        return routeDefinitions;
+    }
+
+    private RouteDefinitionSettings createRouteDefinitionSettings(OpenApiRouteDefinitionLocatorProperties.Service service) {
+        return new RouteDefinitionSettings(
+                new EffectiveRouteSettings(properties.getDefaultRouteSettings(), service.getDefaultRouteSettings()),
+                properties.isConsolidateRoutes(),
+                properties.getUpdateScheduler().isScopedRouteRefresh());
+    }
+
+    /**
+     * Drops the combined settings if properties of the OpenAPI Route Definition Locator changed. They are combined
+     * again from the rebound properties when the route definitions are requested next, i.e. with the route refresh
+     * that follows a refresh of the configuration.
+     */
+    @Override
+    public void onApplicationEvent(@NonNull EnvironmentChangeEvent event) {
+        if (event.getKeys().stream().anyMatch(key -> key.startsWith(PROPERTIES_PREFIX))) {
+            log.debug("Configuration properties changed. Combining the route definition settings again.");
+            routeDefinitionSettings.clear();
+        }
+    }
+
+    /**
+     * Groups the operations which only differ in their HTTP method. Each group keeps the position of its first
+     * operation.
+     */
+    private static Collection<List<OpenApiOperation>> consolidate(List<OpenApiOperation> operations) {
+        Map<ConsolidationKey, List<OpenApiOperation>> consolidatedOperations = new LinkedHashMap<>();
+        operations.forEach(operation -> consolidatedOperations
+                .computeIfAbsent(new ConsolidationKey(operation), key -> new ArrayList<>())
+                .add(operation));
+        return consolidatedOperations.values();
+    }
+
+    /**
+     * Creates the route definition for the given operations which only differ in their HTTP method. The settings of
+     * the operations are appended to the given default route settings of the service.
+     */
+    private RouteDefinition toRouteDefinition(
+            OpenApiRouteDefinitionLocatorProperties.Service service,
+            EffectiveRouteSettings defaultRouteSettings,
+            List<OpenApiOperation> operations
+    ) {
+        OpenApiOperation operation = operations.get(0);
+        RouteDefinition routeDefinition = new RouteDefinition();
+        routeDefinition.setId(operations.size() == 1 ? routeId(service, operation) : routeId(service, operations));
+        routeDefinition.setUri(operation.getBaseUri());
+
+        PredicateDefinition pathPredicate = new PredicateDefinition("Path=" + operation.getPath());
+        PredicateDefinition methodPredicate = new PredicateDefinition("Method=" + toHttpMethods(operations));
+
+        List<PredicateDefinition> predicates = new ArrayList<>();
+        predicates.add(methodPredicate);
+        predicates.add(pathPredicate);
+        predicates.addAll(defaultRouteSettings.getPredicates());
+        predicates.addAll(operation.getPredicates());
+        routeDefinition.setPredicates(predicates);
+
+        List<FilterDefinition> filters = new ArrayList<>(defaultRouteSettings.getFilters());
+        filters.addAll(operation.getFilters());
+        routeDefinition.setFilters(filters);
 
+        if (!openApiRouteDefinitionCustomizers.isEmpty()) {
+            // The filter and predicate definitions are shared with other routes and have unmodifiable arguments, but
+            // customizers may modify them.
+            predicates.replaceAll(OpenApiRouteDefinitionLocator::mutableCopy);
+            filters.replaceAll(OpenApiRouteDefinitionLocator::mutableCopy);
+        }
+
+        firstPresent(operation.getOrder(), defaultRouteSettings.getOrder()).ifPresent(routeDefinition::setOrder);
+
+        Optional<Map<String, Object>> metaData = MapMerge.deepMerge(defaultRouteSettings.getMetadata(), operation.getMetadata());
+        if (!openApiRouteDefinitionCustomizers.isEmpty()) {
+            // The merged metadata is immutable and shares parts with the metadata of other routes, but customizers
+            // may modify it.
+            metaData = metaData.map(MapMerge::mutableCopy);
+        }
+        if (properties.getUpdateScheduler().isScopedRouteRefresh()) {
+            Map<String, Object> scopedMetadata = new HashMap<>(metaData.orElse(Collections.emptyMap()));
+            scopedMetadata.put(METADATA_KEY_SERVICE_ID, service.getId());
+            metaData = Optional.of(scopedMetadata);
+        }
+        metaData.ifPresent(routeDefinition::setMetadata);
+
+        if (!openApiRouteDefinitionCustomizers.isEmpty()) {
+            // The extension maps are unmodifiable and shared with other operations, but customizers may modify them.
+            Map<String, Object> openApiExtension = MapMerge.mutableCopy(operation.getOpenApiExtension());
+            Map<String, Object> openApiOperationExtension = MapMerge.mutableCopy(operation.getOpenApiOperationExtension());
             openApiRouteDefinitionCustomizers.forEach(customizer ->
-                customizer.customize(routeDefinition, service, operation.getOpenApiExtension(),
-                    operation.getOpenApiOperationExtension())
+                customizer.customize(routeDefinition, service, openApiExtension, openApiOperationExtension)
             );
+        }
 
-            routeDefinitions.add(routeDefinition);
-        }));
+        return routeDefinition;
+    }
 
-        return Flux.fromIterable(routeDefinitions);
+    private static PredicateDefinition mutableCopy(PredicateDefinition predicate) {
+        PredicateDefinition copy = new PredicateDefinition();
+        copy.setName(predicate.getName());
+        copy.setArgs(new LinkedHashMap<>(predicate.getArgs()));
+        return copy;
+    }
+
+    private static FilterDefinition mutableCopy(FilterDefinition filter) {
+        FilterDefinition copy = new FilterDefinition();
+        copy.setName(filter.getName());
+        copy.setArgs(new LinkedHashMap<>(filter.getArgs()));
+        return copy;
+    }
+
+    /**
+     * Derives a stable route ID from the service ID, HTTP method and path of the operation, so that the same
+     * operation gets the same route ID across route refreshes and gateway instances.
+     */
+    static String routeId(OpenApiRouteDefinitionLocatorProperties.Service service, OpenApiOperation operation) {
+        String routeKey = service.getId() + " " + operation.getHttpMethod().name() + " " + operation.getPath();
+        return UUID.nameUUIDFromBytes(routeKey.getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    private static String routeId(OpenApiRouteDefinitionLocatorProperties.Service service, List<OpenApiOperation> operations) {
+        String routeKey = service.getId() + " " + toHttpMethods(operations) + " " + operations.get(0).getPath();
+        return UUID.nameUUIDFromBytes(routeKey.getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    private static String toHttpMethods(List<OpenApiOperation> operations) {
+        return operations.stream()
+                .map(operation -> operation.getHttpMethod().name())
+                .collect(Collectors.joining(","));
+    }
+
+    /**
+     * Everything but the HTTP method of an operation that affects its route definition.
+     */
+    @Value
+    private static class ConsolidationKey {
+        URI baseUri;
+        String path;
+        List<FilterDefinition> filters;
+        List<PredicateDefinition> predicates;
+        Optional<Integer> order;
+        Optional<Map<String, Object>> metadata;
+        Map<String, Object> openApiOperationExtension;
+
+        ConsolidationKey(OpenApiOperation operation) {
+            this.baseUri = operation.getBaseUri();
+            this.path = operation.getPath();
+            this.filters = operation.getFilters();
+            this.predicates = operation.getPredicates();
+            this.order = operation.getOrder();
+            this.metadata = operation.getMetadata();
+            this.openApiOperationExtension = operation.getOpenApiOperationExtension();
+        }
+    }
+
+    /**
+     * The global default route settings combined with the default route settings of a service. These are the same for
+     * all operations of the service, so they are combined once per service and configuration instead of once per
+     * operation. The merged metadata is shared by the metadata of all route definitions of the service.
+     */
+    @Value
+    private static class EffectiveRouteSettings {
+        List<PredicateDefinition> predicates;
+        List<FilterDefinition> filters;
+        Optional<Integer> order;
+        Optional<Map<String, Object>> metadata;
+
+        EffectiveRouteSettings(
+                OpenApiRouteDefinitionLocatorProperties.DefaultRouteSettings globalSettings,
+                OpenApiRouteDefinitionLocatorProperties.DefaultRouteSettings serviceSettings
+        ) {
+            List<PredicateDefinition> predicates = new ArrayList<>(globalSettings.getPredicates());
+            predicates.addAll(serviceSettings.getPredicates());
+            this.predicates = Collections.unmodifiableList(predicates);
+
+            List<FilterDefinition> filters = new ArrayList<>(globalSettings.getFilters());
+            filters.addAll(serviceSettings.getFilters());
+            this.filters = Collections.unmodifiableList(filters);
+
+            this.order = firstPresent(serviceSettings.getOrder(), globalSettings.getOrder());
+            this.metadata = MapMerge.deepMerge(Optional.of(globalSettings.getMetadata()),
+                    Optional.of(serviceSettings.getMetadata()));
+        }
+    }
+
+    /**
+     * All configuration properties the route definitions of a service are created from, apart from its operations.
+     * Compared by identity.
+     */
+    @Value
+    private static class RouteDefinitionSettings {
+        EffectiveRouteSettings defaultRouteSettings;
+        boolean consolidateRoutes;
+        boolean scopedRouteRefresh;
+    }
+
+    @Value
+    private static class CachedRouteDefinitions {
+        List<OpenApiOperation> operations;
+        RouteDefinitionSettings settings;
+        List<RouteDefinition> routeDefinitions;
     }
 }
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2022 Jan Bretschneider <mail@jan-bretschneider.de>
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You can find the License in the `LICENSE` file at the top level of
+ * this repository or may obtain a copy at
+ *
+ *   https://raw.githubusercontent.com/jbretsch/openapi-route-definition-locator/master/LICENSE
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package net.bretti.openapi.route.definition.locator.core.impl;
+
+import net.bretti.openapi.route.definition.locator.core.config.OpenApiRouteDefinitionLocatorProperties;
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+
+/**
+ * Reports {@code UP} if operations are registered for at least the configured ratio of services and
+ * {@code OUT_OF_SERVICE} otherwise. Meant to be included in the readiness health group so that a gateway
+ * instance only receives traffic once it is able to route it.
+ */
+public class OpenApiRouteDefinitionLocatorHealthIndicator extends AbstractHealthIndicator {
+
+    private final OpenApiDefinitionRepository openApiDefinitionRepository;
+    private final OpenApiRouteDefinitionLocatorProperties config;
+
+    public OpenApiRouteDefinitionLocatorHealthIndicator(
+            OpenApiDefinitionRepository openApiDefinitionRepository,
+            OpenApiRouteDefinitionLocatorProperties config
+    ) {
+        super("OpenAPI Route Definition Locator health check failed");
+        this.openApiDefinitionRepository = openApiDefinitionRepository;
+        this.config = config;
+    }
+
+    @Override
+    protected void doHealthCheck(Health.Builder builder) {
+        int services = config.getServices().size();
+        long loadedServices = openApiDefinitionRepository.getLoadedServicesCount();
+        double minLoadedServicesRatio = config.getInitialLoad().getMinLoadedServicesRatio();
+
+        if (loadedServices >= Math.ceil(services * minLoadedServicesRatio)) {
+            builder.up();
+        } else {
+            builder.outOfService();
+        }
+        builder.withDetail("services", services)
+                .withDetail("loadedServices", loadedServices)
+                .withDetail("minLoadedServicesRatio", minLoadedServicesRatio);
+    }
+
+}
@@ -28,6 +28,7 @@ import jakarta.annotation.PostConstruct;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 @RequiredArgsConstructor
@@ -35,10 +36,21 @@ public class OpenApiRouteDefinitionLocatorMetrics {
     static final String METRIC_NAME_UPDATES = "openapi_route_definition_locator_openapi_definition_updates";
     private static final String METRIC_DESCRIPTION_UPDATES = "Time and count of attempts to update the route definitions for registered services based on their OpenAPI definitions.";
 
+    static final String METRIC_NAME_UPDATE_CYCLES = "openapi_route_definition_locator_openapi_definition_update_cycles";
+    private static final String METRIC_DESCRIPTION_UPDATE_CYCLES = "Time and count of runs updating the route definitions of all registered services.";
+
     private static final String METRIC_NAME_ROUTES = "openapi_route_definition_locator_routes_count";
     private static final String METRIC_DESCRIPTION_ROUTES = "Number of routes managed by the OpenAPI Route Definition Locator";
 
+    static final String METRIC_NAME_OPENAPI_DEFINITION_INFO = "openapi_route_definition_locator_openapi_definition_info";
+    static final String METRIC_DESCRIPTION_OPENAPI_DEFINITION_INFO = "The OpenAPI definition currently in effect for a registered service. Always 1; the digest tag identifies the definition.";
+
+    private static final String METRIC_NAME_CIRCUIT_STATE = "openapi_route_definition_locator_circuit_state";
+    private static final String METRIC_DESCRIPTION_CIRCUIT_STATE = "Whether the circuit for retrieving the OpenAPI definition of a registered service is in the given state (1) or not (0).";
+
     static final String METRIC_TAG_UPSTREAM_SERVICE = "upstream_service";
+    static final String METRIC_TAG_CIRCUIT_STATE = "state";
+    static final String METRIC_TAG_OPENAPI_DEFINITION_DIGEST = "openapi_definition_digest";
 
     static final String METRIC_TAG_UPDATE_RESULT = "update_result";
     static final String METRIC_TAG_UPDATE_RESULT_SUCCESS = "success";
@@ -66,6 +78,14 @@ public class OpenApiRouteDefinitionLocatorMetrics {
                 METRIC_TAG_UPDATE_RESULT_DETAILED_FAILURE_PUBLICATION
         ));
 
+        updateResults.keySet().forEach(updateResult ->
+            Timer.builder(METRIC_NAME_UPDATE_CYCLES)
+                    .description(METRIC_DESCRIPTION_UPDATE_CYCLES)
+                    .tags(METRIC_TAG_UPDATE_RESULT, updateResult)
+                    .publishPercentiles(0.5, 0.8, 0.95, 0.98)
+                    .register(meterRegistry)
+        );
+
         config.getServices().forEach(service -> {
             updateResults.forEach((updateResult, updateResultDetails) ->
                 updateResultDetails.forEach(updateResultDetail ->
@@ -84,6 +104,18 @@ public class OpenApiRouteDefinitionLocatorMetrics {
                     .tag(METRIC_TAG_UPSTREAM_SERVICE, service.getId())
                     .strongReference(true)
                     .register(meterRegistry);
+
+            if (config.getUpdateScheduler().getBackoff().isEnabled()) {
+                Arrays.stream(UpdateSchedule.CircuitState.values()).forEach(circuitState ->
+                    Gauge.builder(METRIC_NAME_CIRCUIT_STATE,
+                                    () -> openApiDefinitionRepository.getCircuitState(service) == circuitState ? 1 : 0)
+                            .description(METRIC_DESCRIPTION_CIRCUIT_STATE)
+                            .tags(METRIC_TAG_UPSTREAM_SERVICE, service.getId(),
+                                    METRIC_TAG_CIRCUIT_STATE, circuitState.name().toLowerCase(Locale.ROOT))
+                            .strongReference(true)
+                            .register(meterRegistry)
+                );
+            }
         });
     }
 
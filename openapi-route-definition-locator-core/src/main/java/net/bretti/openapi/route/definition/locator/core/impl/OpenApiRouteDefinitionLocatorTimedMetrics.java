@@ -18,16 +18,49 @@
 
 package net.bretti.openapi.route.definition.locator.core.impl;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
 import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
+import static net.bretti.openapi.route.definition.locator.core.impl.OpenApiRouteDefinitionLocatorMetrics.METRIC_DESCRIPTION_OPENAPI_DEFINITION_INFO;
+import static net.bretti.openapi.route.definition.locator.core.impl.OpenApiRouteDefinitionLocatorMetrics.METRIC_NAME_OPENAPI_DEFINITION_INFO;
+import static net.bretti.openapi.route.definition.locator.core.impl.OpenApiRouteDefinitionLocatorMetrics.METRIC_TAG_OPENAPI_DEFINITION_DIGEST;
+import static net.bretti.openapi.route.definition.locator.core.impl.OpenApiRouteDefinitionLocatorMetrics.METRIC_TAG_UPSTREAM_SERVICE;
+
 @RequiredArgsConstructor
 public class OpenApiRouteDefinitionLocatorTimedMetrics {
     private final MeterRegistry meterRegistry;
+    private final Map<String, Meter.Id> openApiDefinitionInfoMeterIds = new ConcurrentHashMap<>();
 
     void recordTime(String name, long amount, TimeUnit unit, String... tags) {
         meterRegistry.timer(name, tags).record(amount, unit);
     }
+
+    /**
+     * Publishes the digest of the OpenAPI definition currently in effect for the given service. Replaces the
+     * meter of a previously recorded digest so that exactly one digest per service is exposed.
+     */
+    void recordOpenApiDefinitionDigest(String upstreamService, String digest) {
+        Gauge gauge = Gauge.builder(METRIC_NAME_OPENAPI_DEFINITION_INFO, () -> 1)
+                .description(METRIC_DESCRIPTION_OPENAPI_DEFINITION_INFO)
+                .tags(METRIC_TAG_UPSTREAM_SERVICE, upstreamService, METRIC_TAG_OPENAPI_DEFINITION_DIGEST, digest)
+                .strongReference(true)
+                .register(meterRegistry);
+        Meter.Id previousId = openApiDefinitionInfoMeterIds.put(upstreamService, gauge.getId());
+        if (previousId != null && !previousId.equals(gauge.getId())) {
+            meterRegistry.remove(previousId);
+        }
+    }
+
+    void removeOpenApiDefinitionDigest(String upstreamService) {
+        Meter.Id previousId = openApiDefinitionInfoMeterIds.remove(upstreamService);
+        if (previousId != null) {
+            meterRegistry.remove(previousId);
+        }
+    }
 }
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2022 Jan Bretschneider <mail@jan-bretschneider.de>
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You can find the License in the `LICENSE` file at the top level of
+ * this repository or may obtain a copy at
+ *
+ *   https://raw.githubusercontent.com/jbretsch/openapi-route-definition-locator/master/LICENSE
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package net.bretti.openapi.route.definition.locator.core.impl;
+
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import org.springframework.core.Ordered;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Counts how often the routes created by the {@link OpenApiRouteDefinitionLocator} are matched and orders them by
+ * their hit counts, so that the gateway evaluates frequently matched routes first.
+ */
+public class OpenApiRouteHitCounter implements GlobalFilter, Ordered {
+
+    /**
+     * The hit counts of the routes last ordered by this counter. Other routes are not counted.
+     */
+    private volatile Map<String, LongAdder> hitCounts = new ConcurrentHashMap<>();
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        if (route != null) {
+            LongAdder hitCount = hitCounts.get(route.getId());
+            if (hitCount != null) {
+                hitCount.increment();
+            }
+        }
+        return chain.filter(exchange);
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    /**
+     * Returns the number of times the route with the given ID was matched.
+     */
+    public long getHitCount(String routeId) {
+        LongAdder hitCount = hitCounts.get(routeId);
+        return hitCount == null ? 0 : hitCount.sum();
+    }
+
+    /**
+     * Orders the given route definitions by their hit counts, most frequently matched first. A route definition is
+     * never moved before another one that precedes it and may match the same requests. Route definitions with equal
+     * hit counts keep their relative order. Only the given route definitions are counted from now on.
+     */
+    List<RouteDefinition> orderByHitCount(List<RouteDefinition> routeDefinitions) {
+        Map<String, LongAdder> currentHitCounts = hitCounts;
+        Map<String, LongAdder> newHitCounts = new ConcurrentHashMap<>();
+        long[] hits = new long[routeDefinitions.size()];
+        for (int i = 0; i < routeDefinitions.size(); i++) {
+            String routeId = routeDefinitions.get(i).getId();
+            if (routeId == null) {
+                continue;
+            }
+            LongAdder hitCount = currentHitCounts.getOrDefault(routeId, new LongAdder());
+            newHitCounts.put(routeId, hitCount);
+            hits[i] = hitCount.sum();
+        }
+        hitCounts = newHitCounts;
+
+        List<RouteDefinition> orderedRouteDefinitions = new ArrayList<>(routeDefinitions.size());
+        for (int index : RouteConflicts.of(routeDefinitions).sortPreservingConflicts(hits)) {
+            orderedRouteDefinitions.add(routeDefinitions.get(index));
+        }
+        return orderedRouteDefinitions;
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2022 Jan Bretschneider <mail@jan-bretschneider.de>
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You can find the License in the `LICENSE` file at the top level of
+ * this repository or may obtain a copy at
+ *
+ *   https://raw.githubusercontent.com/jbretsch/openapi-route-definition-locator/master/LICENSE
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package net.bretti.openapi.route.definition.locator.core.impl;
+
+import lombok.Value;
+import org.springframework.cloud.gateway.handler.predicate.PredicateDefinition;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import org.springframework.http.server.PathContainer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Index of the path patterns of the routes created by the {@link OpenApiRouteDefinitionLocator}. The patterns are
+ * stored in a trie over their path segments, so that the routes whose {@code Path} predicate may match a request
+ * path are found by walking the segments of the request path once.
+ * <p>
+ * The index is conservative: it may report a route as candidate whose {@code Path} predicate does not match, but
+ * never misses a route whose {@code Path} predicate matches. Routes that are not indexed are always candidates.
+ */
+public class OpenApiRoutePathIndex {
+
+    private static final String PATH_PREDICATE_NAME = "Path";
+    private static final String MATCH_TRAILING_SLASH_ARG = "matchTrailingSlash";
+
+    private volatile Trie trie = new Trie(new HashSet<>(), new Node());
+
+    /**
+     * Replaces the indexed routes with the given route definitions.
+     */
+    void update(List<RouteDefinition> routeDefinitions) {
+        Set<String> indexedRouteIds = new HashSet<>();
+        Node root = new Node();
+        routeDefinitions.forEach(routeDefinition -> getPathPatterns(routeDefinition).ifPresent(patterns -> {
+            indexedRouteIds.add(routeDefinition.getId());
+            patterns.forEach(pattern -> root.add(toSegments(pattern), 0, routeDefinition.getId()));
+        }));
+        trie = new Trie(indexedRouteIds, root);
+    }
+
+    /**
+     * Finds the routes which may match the given request path. Like the {@code Path} predicate, callers pass the raw
+     * path of the request URI, including a context path, if any.
+     */
+    public Candidates findCandidates(PathContainer path) {
+        List<String> segments = new ArrayList<>();
+        path.elements().forEach(element -> {
+            if (element instanceof PathContainer.PathSegment) {
+                segments.add(((PathContainer.PathSegment) element).valueToMatch());
+            }
+        });
+
+        Trie currentTrie = trie;
+        Set<String> matchingRouteIds = new HashSet<>();
+        currentTrie.getRoot().collect(segments, 0, matchingRouteIds);
+        return new Candidates(currentTrie.getIndexedRouteIds(), matchingRouteIds);
+    }
+
+    /**
+     * Returns the patterns of the first {@code Path} predicate of the given route definition, if they can be
+     * indexed.
+     */
+    static Optional<List<String>> getPathPatterns(RouteDefinition routeDefinition) {
+        if (routeDefinition.getId() == null) {
+            return Optional.empty();
+        }
+        Optional<PredicateDefinition> pathPredicate = routeDefinition.getPredicates().stream()
+                .filter(predicate -> PATH_PREDICATE_NAME.equals(predicate.getName()))
+                .findFirst();
+        if (pathPredicate.isEmpty()) {
+            return Optional.empty();
+        }
+
+        List<String> patterns = new ArrayList<>();
+        for (Map.Entry<String, String> arg : pathPredicate.get().getArgs().entrySet()) {
+            if (MATCH_TRAILING_SLASH_ARG.equals(arg.getKey())) {
+                continue;
+            }
+            if (arg.getValue() == null || !arg.getValue().startsWith("/")) {
+                return Optional.empty();
+            }
+            patterns.add(arg.getValue());
+        }
+        return patterns.isEmpty() ? Optional.empty() : Optional.of(patterns);
+    }
+
+    /**
+     * Splits the given path pattern into its segments. A trailing slash is ignored because the {@code Path}
+     * predicate may be configured to match it.
+     */
+    static List<String> toSegments(String pattern) {
+        List<String> segments = new ArrayList<>(List.of(pattern.substring(1).split("/", -1)));
+        if (!segments.isEmpty() && segments.get(segments.size() - 1).isEmpty()) {
+            segments.remove(segments.size() - 1);
+        }
+        return segments;
+    }
+
+    static boolean isRestOfPath(String segment) {
+        return segment.equals("**") || segment.startsWith("{*");
+    }
+
+    static boolean isWildcard(String segment) {
+        return segment.indexOf('{') >= 0 || segment.indexOf('*') >= 0 || segment.indexOf('?') >= 0;
+    }
+
+    private static class Node {
+        private final Map<String, Node> literalChildren = new HashMap<>();
+        private Node wildcardChild;
+        private final Set<String> routeIdsEndingHere = new HashSet<>();
+        private final Set<String> routeIdsMatchingRestOfPath = new HashSet<>();
+
+        void add(List<String> segments, int index, String routeId) {
+            if (index == segments.size()) {
+                routeIdsEndingHere.add(routeId);
+                return;
+            }
+            String segment = segments.get(index);
+            if (isRestOfPath(segment)) {
+                routeIdsMatchingRestOfPath.add(routeId);
+                return;
+            }
+            Node child;
+            if (isWildcard(segment)) {
+                if (wildcardChild == null) {
+                    wildcardChild = new Node();
+                }
+                child = wildcardChild;
+            } else {
+                child = literalChildren.computeIfAbsent(segment, key -> new Node());
+            }
+            child.add(segments, index + 1, routeId);
+        }
+
+        void collect(List<String> segments, int index, Set<String> routeIds) {
+            routeIds.addAll(routeIdsMatchingRestOfPath);
+            if (index == segments.size()) {
+                routeIds.addAll(routeIdsEndingHere);
+                return;
+            }
+            Node literalChild = literalChildren.get(segments.get(index));
+            if (literalChild != null) {
+                literalChild.collect(segments, index + 1, routeIds);
+            }
+            if (wildcardChild != null) {
+                wildcardChild.collect(segments, index + 1, routeIds);
+            }
+        }
+    }
+
+    @Value
+    private static class Trie {
+        Set<String> indexedRouteIds;
+        Node root;
+    }
+
+    /**
+     * The routes which may match a request path.
+     */
+    @Value
+    public static class Candidates {
+        Set<String> indexedRouteIds;
+        Set<String> matchingRouteIds;
+
+        public boolean isCandidate(String routeId) {
+            return !indexedRouteIds.contains(routeId) || matchingRouteIds.contains(routeId);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2022 Jan Bretschneider <mail@jan-bretschneider.de>
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You can find the License in the `LICENSE` file at the top level of
+ * this repository or may obtain a copy at
+ *
+ *   https://raw.githubusercontent.com/jbretsch/openapi-route-definition-locator/master/LICENSE
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package net.bretti.openapi.route.definition.locator.core.impl;
+
+import lombok.Value;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+
+@Value
+class RetrievedOpenApiDefinition {
+    /**
+     * The OpenAPI definition. Empty if the server reported that the definition has not been modified since the
+     * last retrieval.
+     */
+    Optional<String> content;
+
+    /**
+     * Hex encoded SHA-256 digest of the raw bytes of the OpenAPI definition. Empty if {@link #content} is empty.
+     */
+    Optional<String> contentDigest;
+
+    HttpCacheValidators cacheValidators;
+
+    static RetrievedOpenApiDefinition of(byte[] content) {
+        return of(content, new HttpCacheValidators(Optional.empty(), Optional.empty()));
+    }
+
+    static RetrievedOpenApiDefinition of(byte[] content, HttpCacheValidators cacheValidators) {
+        return new RetrievedOpenApiDefinition(
+                Optional.of(new String(content, StandardCharsets.UTF_8)),
+                Optional.of(sha256Hex(content)),
+                cacheValidators);
+    }
+
+    static RetrievedOpenApiDefinition notModified(HttpCacheValidators cacheValidators) {
+        return new RetrievedOpenApiDefinition(Optional.empty(), Optional.empty(), cacheValidators);
+    }
+
+    private static String sha256Hex(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256.
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2022 Jan Bretschneider <mail@jan-bretschneider.de>
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You can find the License in the `LICENSE` file at the top level of
+ * this repository or may obtain a copy at
+ *
+ *   https://raw.githubusercontent.com/jbretsch/openapi-route-definition-locator/master/LICENSE
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package net.bretti.openapi.route.definition.locator.core.impl;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.cloud.gateway.handler.predicate.PredicateDefinition;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * The pairs of route definitions which may match the same request, judged by their {@code Method} and {@code Path}
+ * predicates. Route definitions without these predicates may match any request. The relative order of such pairs
+ * determines which route the gateway chooses and must therefore be kept.
+ */
+@RequiredArgsConstructor
+class RouteConflicts {
+
+    private static final String METHOD_PREDICATE_NAME = "Method";
+    private static final String ANY_FIRST_SEGMENT = "*";
+
+    /**
+     * For each route definition the indexes of the subsequent route definitions it conflicts with.
+     */
+    private final List<List<Integer>> successors;
+
+    /**
+     * For each route definition the number of preceding route definitions it conflicts with.
+     */
+    private final int[] predecessorCounts;
+
+    static RouteConflicts of(List<RouteDefinition> routeDefinitions) {
+        List<RouteMatch> routeMatches = routeDefinitions.stream().map(RouteMatch::of).toList();
+        List<List<Integer>> successors = new ArrayList<>(routeDefinitions.size());
+        int[] predecessorCounts = new int[routeDefinitions.size()];
+
+        // Patterns can only overlap if their first segments can, so only routes sharing a first segment are compared.
+        Map<String, List<Integer>> routesByFirstSegment = new HashMap<>();
+        List<Integer> routesWithAnyFirstSegment = new ArrayList<>();
+        for (int j = 0; j < routeMatches.size(); j++) {
+            successors.add(new ArrayList<>());
+            RouteMatch routeMatch = routeMatches.get(j);
+
+            Set<Integer> candidates = new HashSet<>(routesWithAnyFirstSegment);
+            if (routeMatch.getFirstSegments().contains(ANY_FIRST_SEGMENT)) {
+                for (int i = 0; i < j; i++) {
+                    candidates.add(i);
+                }
+            } else {
+                routeMatch.getFirstSegments().forEach(firstSegment ->
+                        candidates.addAll(routesByFirstSegment.getOrDefault(firstSegment, List.of())));
+            }
+            for (int i : candidates) {
+                if (routeMatches.get(i).conflictsWith(routeMatch)) {
+                    successors.get(i).add(j);
+                    predecessorCounts[j]++;
+                }
+            }
+
+            if (routeMatch.getFirstSegments().contains(ANY_FIRST_SEGMENT)) {
+                routesWithAnyFirstSegment.add(j);
+            } else {
+                for (String firstSegment : routeMatch.getFirstSegments()) {
+                    routesByFirstSegment.computeIfAbsent(firstSegment, key -> new ArrayList<>()).add(j);
+                }
+            }
+        }
+        return new RouteConflicts(successors, predecessorCounts);
+    }
+
+    /**
+     * Sorts the route definitions by the given weights in descending order, while keeping the relative order of
+     * conflicting route definitions. Route definitions with equal weights keep their relative order.
+     *
+     * @return the indexes of the route definitions in sorted order
+     */
+    List<Integer> sortPreservingConflicts(long[] weights) {
+        int[] remainingPredecessors = predecessorCounts.clone();
+        PriorityQueue<Integer> available = new PriorityQueue<>(
+                Comparator.<Integer>comparingLong(index -> weights[index]).reversed()
+                        .thenComparing(Comparator.naturalOrder()));
+        for (int i = 0; i < remainingPredecessors.length; i++) {
+            if (remainingPredecessors[i] == 0) {
+                available.add(i);
+            }
+        }
+
+        List<Integer> sorted = new ArrayList<>(remainingPredecessors.length);
+        while (!available.isEmpty()) {
+            int index = available.poll();
+            sorted.add(index);
+            for (int successor : successors.get(index)) {
+                if (--remainingPredecessors[successor] == 0) {
+                    available.add(successor);
+                }
+            }
+        }
+        return sorted;
+    }
+
+    @RequiredArgsConstructor
+    private static class RouteMatch {
+        /**
+         * The HTTP methods the route matches, or empty if it matches all methods.
+         */
+        private final Optional<Set<String>> methods;
+
+        /**
+         * The segments of the path patterns the route matches, or empty if it matches all paths.
+         */
+        private final Optional<List<List<String>>> pathPatterns;
+
+        static RouteMatch of(RouteDefinition routeDefinition) {
+            Optional<Set<String>> methods = routeDefinition.getPredicates().stream()
+                    .filter(predicate -> METHOD_PREDICATE_NAME.equals(predicate.getName()))
+                    .findFirst()
+                    .map(RouteMatch::toMethods);
+            Optional<List<List<String>>> pathPatterns = OpenApiRoutePathIndex.getPathPatterns(routeDefinition)
+                    .map(patterns -> patterns.stream().map(OpenApiRoutePathIndex::toSegments).toList());
+            return new RouteMatch(methods, pathPatterns);
+        }
+
+        private static Set<String> toMethods(PredicateDefinition methodPredicate) {
+            Set<String> methods = new HashSet<>();
+            methodPredicate.getArgs().values().forEach(method -> methods.add(method.trim().toUpperCase()));
+            return methods;
+        }
+
+        Set<String> getFirstSegments() {
+            if (pathPatterns.isEmpty()) {
+                return Set.of(ANY_FIRST_SEGMENT);
+            }
+            Set<String> firstSegments = new HashSet<>();
+            for (List<String> segments : pathPatterns.get()) {
+                if (segments.isEmpty()) {
+                    firstSegments.add("");
+                } else if (OpenApiRoutePathIndex.isWildcard(segments.get(0))) {
+                    return Set.of(ANY_FIRST_SEGMENT);
+                } else {
+                    firstSegments.add(segments.get(0));
+                }
+            }
+            return firstSegments;
+        }
+
+        boolean conflictsWith(RouteMatch other) {
+            if (methods.isPresent() && other.methods.isPresent()
+                    && methods.get().stream().noneMatch(other.methods.get()::contains)) {
+                return false;
+            }
+            if (pathPatterns.isEmpty() || other.pathPatterns.isEmpty()) {
+                return true;
+            }
+            for (List<String> segments : pathPatterns.get()) {
+                for (List<String> otherSegments : other.pathPatterns.get()) {
+                    if (mayOverlap(segments, otherSegments)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        private static boolean mayOverlap(List<String> segments, List<String> otherSegments) {
+            for (int i = 0; ; i++) {
+                if (i == segments.size() && i == otherSegments.size()) {
+                    return true;
+                }
+                if (i < segments.size() && OpenApiRoutePathIndex.isRestOfPath(segments.get(i))) {
+                    return true;
+                }
+                if (i < otherSegments.size() && OpenApiRoutePathIndex.isRestOfPath(otherSegments.get(i))) {
+                    return true;
+                }
+                if (i == segments.size() || i == otherSegments.size()) {
+                    return false;
+                }
+                if (!OpenApiRoutePathIndex.isWildcard(segments.get(i))
+                        && !OpenApiRoutePathIndex.isWildcard(otherSegments.get(i))
+                        && !segments.get(i).equals(otherSegments.get(i))) {
+                    return false;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2022 Jan Bretschneider <mail@jan-bretschneider.de>
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You can find the License in the `LICENSE` file at the top level of
+ * this repository or may obtain a copy at
+ *
+ *   https://raw.githubusercontent.com/jbretsch/openapi-route-definition-locator/master/LICENSE
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package net.bretti.openapi.route.definition.locator.core.impl;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import lombok.extern.slf4j.Slf4j;
+import net.bretti.openapi.route.definition.locator.core.config.OpenApiRouteDefinitionLocatorProperties;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.http.HttpMethod;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Extracts paths, HTTP methods and extensions from OpenAPI definitions by streaming over the YAML or JSON tokens.
+ * Everything else, e.g. schemas and examples, is skipped without being materialized. References ({@code $ref})
+ * are not resolved, so path items defined via a reference are ignored. Only OpenAPI 3.x definitions are supported.
+ */
+@Slf4j
+public class StreamingOpenApiDefinitionParser implements OpenApiDefinitionParser {
+    private static final ObjectMapper JSON_MAPPER = new ObjectMapper();
+    private static final ObjectMapper YAML_MAPPER = new ObjectMapper(new YAMLFactory());
+
+    private static final String OPENAPI = "openapi";
+    private static final String PATHS = "paths";
+    private static final String REF = "$ref";
+    private static final String EXTENSION_PREFIX = "x-";
+
+    /**
+     * The HTTP methods an OpenAPI path item can have operations for, in the order swagger-parser reports them.
+     */
+    private static final List<String> HTTP_METHODS = List.of("get", "put", "post", "delete", "patch", "head", "options", "trace");
+
+    @Override
+    public ParsedOpenApiDefinition parse(String content, OpenApiRouteDefinitionLocatorProperties.Service service) {
+        ObjectMapper mapper = StringUtils.stripStart(content, null).startsWith("{") ? JSON_MAPPER : YAML_MAPPER;
+        try (JsonParser parser = mapper.createParser(content)) {
+            return parseDocument(parser, service);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Error while parsing OpenAPI definition: " + e.getMessage(), e);
+        }
+    }
+
+    private static ParsedOpenApiDefinition parseDocument(
+            JsonParser parser,
+            OpenApiRouteDefinitionLocatorProperties.Service service
+    ) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IllegalArgumentException("Error while parsing OpenAPI definition: Document is not an object");
+        }
+
+        String openApiVersion = null;
+        Map<String, Object> extensions = new LinkedHashMap<>();
+        List<ParsedOpenApiDefinition.Operation> operations = new ArrayList<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.currentName();
+            parser.nextToken();
+            if (OPENAPI.equals(fieldName)) {
+                openApiVersion = parser.getValueAsString();
+                parser.skipChildren();
+            } else if (PATHS.equals(fieldName)) {
+                parsePaths(parser, operations, service);
+            } else if (fieldName.startsWith(EXTENSION_PREFIX)) {
+                extensions.put(fieldName, parser.readValueAs(Object.class));
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        if (openApiVersion == null || !openApiVersion.startsWith("3.")) {
+            throw new IllegalArgumentException("Error while parsing OpenAPI definition: Attribute 'openapi' is " +
+                    "missing or does not denote an OpenAPI 3.x definition");
+        }
+        return new ParsedOpenApiDefinition(extensions, operations);
+    }
+
+    private static void parsePaths(
+            JsonParser parser,
+            List<ParsedOpenApiDefinition.Operation> operations,
+            OpenApiRouteDefinitionLocatorProperties.Service service
+    ) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String path = parser.currentName();
+            parser.nextToken();
+            parsePathItem(parser, path, operations, service);
+        }
+    }
+
+    private static void parsePathItem(
+            JsonParser parser,
+            String path,
+            List<ParsedOpenApiDefinition.Operation> operations,
+            OpenApiRouteDefinitionLocatorProperties.Service service
+    ) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+
+        Map<String, Map<String, Object>> operationExtensionsByHttpMethod = new LinkedHashMap<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.currentName();
+            parser.nextToken();
+            if (HTTP_METHODS.contains(fieldName) && parser.currentToken() != JsonToken.VALUE_NULL) {
+                operationExtensionsByHttpMethod.put(fieldName, parseExtensions(parser));
+            } else if (REF.equals(fieldName)) {
+                log.warn("Ignoring reference of path item '{}' in OpenAPI definition of {}. References are not " +
+                         "resolved by the streaming parser.", path, service.getId());
+                parser.skipChildren();
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        HTTP_METHODS.forEach(httpMethod -> {
+            Map<String, Object> operationExtensions = operationExtensionsByHttpMethod.get(httpMethod);
+            if (operationExtensions != null) {
+                operations.add(new ParsedOpenApiDefinition.Operation(path, HttpMethod.valueOf(httpMethod.toUpperCase(Locale.ROOT)),
+                        operationExtensions));
+            }
+        });
+    }
+
+    private static Map<String, Object> parseExtensions(JsonParser parser) throws IOException {
+        Map<String, Object> extensions = new LinkedHashMap<>();
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return extensions;
+        }
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.currentName();
+            parser.nextToken();
+            if (fieldName.startsWith(EXTENSION_PREFIX)) {
+                extensions.put(fieldName, parser.readValueAs(Object.class));
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return extensions;
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2022 Jan Bretschneider <mail@jan-bretschneider.de>
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You can find the License in the `LICENSE` file at the top level of
+ * this repository or may obtain a copy at
+ *
+ *   https://raw.githubusercontent.com/jbretsch/openapi-route-definition-locator/master/LICENSE
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package net.bretti.openapi.route.definition.locator.core.impl;
+
+import io.swagger.parser.OpenAPIParser;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.PathItem;
+import io.swagger.v3.parser.OpenAPIV3Parser;
+import io.swagger.v3.parser.core.extensions.SwaggerParserExtension;
+import io.swagger.v3.parser.core.models.ParseOptions;
+import io.swagger.v3.parser.core.models.SwaggerParseResult;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.bretti.openapi.route.definition.locator.core.config.OpenApiRouteDefinitionLocatorProperties;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.http.HttpMethod;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.apache.commons.lang3.ObjectUtils.allNull;
+import static org.apache.commons.lang3.ObjectUtils.firstNonNull;
+
+/**
+ * Parses OpenAPI definitions with the full swagger-parser model. The swagger-parser extensions are looked up once
+ * and reused for all OpenAPI definitions instead of creating a new {@link OpenAPIParser} per OpenAPI definition.
+ */
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+@Slf4j
+public class SwaggerOpenApiDefinitionParser implements OpenApiDefinitionParser {
+
+    private final OpenApiRouteDefinitionLocatorProperties config;
+    private final List<SwaggerParserExtension> parserExtensions;
+    private final ConcurrentHashMap<OpenApiRouteDefinitionLocatorProperties.Service, Optional<ParseOptions>> parseOptions =
+            new ConcurrentHashMap<>();
+
+    public SwaggerOpenApiDefinitionParser(OpenApiRouteDefinitionLocatorProperties config) {
+        this(config, OpenAPIV3Parser.getExtensions());
+    }
+
+    @Override
+    public ParsedOpenApiDefinition parse(String content, OpenApiRouteDefinitionLocatorProperties.Service service) {
+        OpenAPI openApi = parseOpenApiDefinition(content, service);
+
+        List<ParsedOpenApiDefinition.Operation> operations = new ArrayList<>();
+        if (openApi.getPaths() != null) {
+            openApi.getPaths().forEach((path, pathItem) ->
+                    pathItem.readOperationsMap().forEach((httpMethod, openApiOperation) ->
+                            operations.add(new ParsedOpenApiDefinition.Operation(path, map(httpMethod),
+                                    firstNonNull(openApiOperation.getExtensions(), Collections.emptyMap())))
+                    )
+            );
+        }
+        return new ParsedOpenApiDefinition(firstNonNull(openApi.getExtensions(), Collections.emptyMap()), operations);
+    }
+
+    private OpenAPI parseOpenApiDefinition(String yaml, OpenApiRouteDefinitionLocatorProperties.Service service) {
+        SwaggerParseResult result = readContents(yaml, parseOptions.computeIfAbsent(service, this::toParseOptions).orElse(null));
+        String messages = StringUtils.defaultString(StringUtils.join(result.getMessages(), "; "));
+        OpenAPI openAPI = result.getOpenAPI();
+        if (openAPI == null) {
+            throw new IllegalArgumentException("Error while parsing OpenAPI definition: " + messages);
+        }
+        if (StringUtils.isNoneBlank(messages)) {
+            log.warn("Warnings while parsing OpenAPI definition of {}: {}", service, messages);
+        }
+        return openAPI;
+    }
+
+    /**
+     * Same as {@link OpenAPIParser#readContents(String, List, ParseOptions)} but with the extensions looked up once.
+     */
+    private SwaggerParseResult readContents(String yaml, ParseOptions options) {
+        SwaggerParseResult output = null;
+        for (SwaggerParserExtension extension : parserExtensions) {
+            output = extension.readContents(yaml, null, options);
+            if (output != null && output.getOpenAPI() != null) {
+                return output;
+            }
+        }
+        return output;
+    }
+
+    /**
+     * Combines the parse options of the given service with the global ones. Returns no options if none are
+     * configured so that swagger-parser behaves as without options.
+     */
+    private Optional<ParseOptions> toParseOptions(OpenApiRouteDefinitionLocatorProperties.Service service) {
+        OpenApiRouteDefinitionLocatorProperties.SwaggerParseOptions serviceOptions = service.getParseOptions();
+        OpenApiRouteDefinitionLocatorProperties.SwaggerParseOptions globalOptions = config.getParsing().getParseOptions();
+        Boolean resolve = firstNonNull(serviceOptions.getResolve(), globalOptions.getResolve());
+        Boolean resolveFully = firstNonNull(serviceOptions.getResolveFully(), globalOptions.getResolveFully());
+        Boolean flatten = firstNonNull(serviceOptions.getFlatten(), globalOptions.getFlatten());
+        Boolean validateInternalRefs = firstNonNull(serviceOptions.getValidateInternalRefs(), globalOptions.getValidateInternalRefs());
+        Boolean validateExternalRefs = firstNonNull(serviceOptions.getValidateExternalRefs(), globalOptions.getValidateExternalRefs());
+        if (allNull(resolve, resolveFully, flatten, validateInternalRefs, validateExternalRefs)) {
+            return Optional.empty();
+        }
+
+        ParseOptions options = new ParseOptions();
+        Optional.ofNullable(resolve).ifPresent(options::setResolve);
+        Optional.ofNullable(resolveFully).ifPresent(options::setResolveFully);
+        Optional.ofNullable(flatten).ifPresent(options::setFlatten);
+        Optional.ofNullable(validateInternalRefs).ifPresent(options::setValidateInternalRefs);
+        Optional.ofNullable(validateExternalRefs).ifPresent(options::setValidateExternalRefs);
+        return Optional.of(options);
+    }
+
+    private static HttpMethod map(PathItem.HttpMethod method) {
+        return HttpMethod.valueOf(method.name());
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2022 Jan Bretschneider <mail@jan-bretschneider.de>
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You can find the License in the `LICENSE` file at the top level of
+ * this repository or may obtain a copy at
+ *
+ *   https://raw.githubusercontent.com/jbretsch/openapi-route-definition-locator/master/LICENSE
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package net.bretti.openapi.route.definition.locator.core.impl;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import net.bretti.openapi.route.definition.locator.core.config.OpenApiRouteDefinitionLocatorProperties;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.apache.commons.lang3.ObjectUtils.firstNonNull;
+
+/**
+ * Keeps track of when the OpenAPI definition of each service is due to be retrieved next. Services without a
+ * recorded retrieval are due after a random delay of up to the configured jitter, so that a gateway started without
+ * an initial load does not retrieve all OpenAPI definitions at the same moment either.
+ */
+@Slf4j
+class UpdateSchedule {
+
+    enum CircuitState {
+        /**
+         * Retrievals are made according to the regular schedule.
+         */
+        CLOSED,
+
+        /**
+         * Retrievals failed repeatedly and are suspended until the backoff delay has passed.
+         */
+        OPEN,
+
+        /**
+         * The backoff delay has passed and the next retrieval decides whether the circuit closes or opens again.
+         */
+        HALF_OPEN
+    }
+
+    private final ConcurrentHashMap<OpenApiRouteDefinitionLocatorProperties.Service, ServiceSchedule> schedules =
+            new ConcurrentHashMap<>();
+
+    boolean isDue(
+            OpenApiRouteDefinitionLocatorProperties config,
+            OpenApiRouteDefinitionLocatorProperties.Service service,
+            Instant now
+    ) {
+        ServiceSchedule schedule = schedules.computeIfAbsent(service, service1 ->
+                new ServiceSchedule(Duration.ZERO, now.plusMillis(randomJitterMillis(config, service1)), 0));
+        return !now.isBefore(schedule.getNextUpdate());
+    }
+
+    /**
+     * Schedules the next retrieval after a successful one. If the adaptive delay is enabled, the delay grows while
+     * the OpenAPI definition stays unchanged and is reset to the fixed delay once it changed.
+     */
+    void recordSuccess(
+            OpenApiRouteDefinitionLocatorProperties config,
+            OpenApiRouteDefinitionLocatorProperties.Service service,
+            boolean changed,
+            Instant now
+    ) {
+        OpenApiRouteDefinitionLocatorProperties.AdaptiveDelay adaptiveDelay = config.getUpdateScheduler().getAdaptiveDelay();
+        Duration fixedDelay = getFixedDelay(config, service);
+        ServiceSchedule previousSchedule = schedules.get(service);
+
+        Duration delay = fixedDelay;
+        if (adaptiveDelay.isEnabled() && !changed && previousSchedule != null
+                && previousSchedule.getConsecutiveFailures() == 0) {
+            Duration grownDelay = Duration.ofMillis((long) (previousSchedule.getDelay().toMillis() * adaptiveDelay.getMultiplier()));
+            Duration maxDelay = max(adaptiveDelay.getMaxDelay(), fixedDelay);
+            delay = max(fixedDelay, grownDelay.compareTo(maxDelay) > 0 ? maxDelay : grownDelay);
+        }
+        if (previousSchedule != null && getCircuitState(config, service, now) != CircuitState.CLOSED) {
+            log.info("Closing circuit for {} after {} consecutive failures.", service.getId(),
+                    previousSchedule.getConsecutiveFailures());
+        }
+        schedule(config, service, delay, 0, now);
+    }
+
+    /**
+     * Schedules the next retrieval after a failed one. Failed retrievals are retried after the fixed delay unless the
+     * backoff is enabled and the number of consecutive failures reached its threshold. Then the delay grows
+     * exponentially with every further failure.
+     */
+    void recordFailure(
+            OpenApiRouteDefinitionLocatorProperties config,
+            OpenApiRouteDefinitionLocatorProperties.Service service,
+            Instant now
+    ) {
+        OpenApiRouteDefinitionLocatorProperties.Backoff backoff = config.getUpdateScheduler().getBackoff();
+        Duration fixedDelay = getFixedDelay(config, service);
+        ServiceSchedule previousSchedule = schedules.get(service);
+        int consecutiveFailures = previousSchedule == null ? 1 : previousSchedule.getConsecutiveFailures() + 1;
+
+        Duration delay = fixedDelay;
+        if (backoff.isEnabled() && consecutiveFailures >= backoff.getFailureThreshold()) {
+            double factor = Math.pow(backoff.getMultiplier(), consecutiveFailures - backoff.getFailureThreshold() + 1);
+            Duration backoffDelay = Duration.ofMillis((long) Math.min(fixedDelay.toMillis() * factor, Long.MAX_VALUE));
+            Duration maxDelay = max(backoff.getMaxDelay(), fixedDelay);
+            delay = backoffDelay.compareTo(maxDelay) > 0 ? maxDelay : backoffDelay;
+            if (consecutiveFailures == backoff.getFailureThreshold()) {
+                log.warn("Opening circuit for {} after {} consecutive failures. Next retrieval in {}.",
+                        service.getId(), consecutiveFailures, delay);
+            }
+        }
+        schedule(config, service, delay, consecutiveFailures, now);
+    }
+
+    CircuitState getCircuitState(
+            OpenApiRouteDefinitionLocatorProperties config,
+            OpenApiRouteDefinitionLocatorProperties.Service service,
+            Instant now
+    ) {
+        OpenApiRouteDefinitionLocatorProperties.Backoff backoff = config.getUpdateScheduler().getBackoff();
+        ServiceSchedule schedule = schedules.get(service);
+        if (!backoff.isEnabled() || schedule == null || schedule.getConsecutiveFailures() < backoff.getFailureThreshold()) {
+            return CircuitState.CLOSED;
+        }
+        return !now.isBefore(schedule.getNextUpdate()) ? CircuitState.HALF_OPEN : CircuitState.OPEN;
+    }
+
+    Duration getDelay(OpenApiRouteDefinitionLocatorProperties.Service service) {
+        ServiceSchedule schedule = schedules.get(service);
+        return schedule == null ? Duration.ZERO : schedule.getDelay();
+    }
+
+    private void schedule(
+            OpenApiRouteDefinitionLocatorProperties config,
+            OpenApiRouteDefinitionLocatorProperties.Service service,
+            Duration delay,
+            int consecutiveFailures,
+            Instant now
+    ) {
+        schedules.put(service, new ServiceSchedule(delay, now.plus(delay).plusMillis(randomJitterMillis(config, service)),
+                consecutiveFailures));
+    }
+
+    private static long randomJitterMillis(
+            OpenApiRouteDefinitionLocatorProperties config,
+            OpenApiRouteDefinitionLocatorProperties.Service service
+    ) {
+        Duration jitter = firstNonNull(service.getUpdateScheduler().getJitter(), config.getUpdateScheduler().getJitter());
+        return jitter.isZero() ? 0 : ThreadLocalRandom.current().nextLong(jitter.toMillis() + 1);
+    }
+
+    static Duration getFixedDelay(
+            OpenApiRouteDefinitionLocatorProperties config,
+            OpenApiRouteDefinitionLocatorProperties.Service service
+    ) {
+        return firstNonNull(service.getUpdateScheduler().getFixedDelay(), config.getUpdateScheduler().getFixedDelay());
+    }
+
+    private static Duration max(Duration a, Duration b) {
+        return a.compareTo(b) >= 0 ? a : b;
+    }
+
+    @Value
+    private static class ServiceSchedule {
+        Duration delay;
+        Instant nextUpdate;
+        int consecutiveFailures;
+    }
+}
@@ -20,23 +20,31 @@ package net.bretti.openapi.route.definition.locator.core.impl.utils;
 
 import lombok.experimental.UtilityClass;
 
+import java.util.AbstractList;
+import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.RandomAccess;
+import java.util.Set;
 
+/**
+ * Deep merges maps. The results are immutable and share all unchanged parts with the maps they were merged from,
+ * as long as those are results of this class themselves. Only maps and lists along the paths changed by a merge
+ * are allocated.
+ */
 @UtilityClass
 public class MapMerge {
     public static Optional<Map<String, Object>> deepMerge(Optional<Map<String, Object>> original, Optional<Map<String, Object>> patch) {
         if (!patch.isPresent()) {
-            return original.map(it -> deepCopy(it, true));
+            return original.map(it -> immutableCopy(it, true));
         }
 
         if (!original.isPresent()) {
-            return patch.map(it -> deepCopy(it, false));
+            return patch.map(it -> immutableCopy(it, false));
         }
 
         return Optional.of(deepMerge(original.get(), patch.get()));
@@ -45,7 +53,7 @@ public class MapMerge {
     @SafeVarargs
     public static Optional<Map<String, Object>> deepMerge(Optional<Map<String, Object>> original, Optional<Map<String, Object>>... patches) {
         if (patches.length == 0) {
-            return original.map(it -> deepCopy(it, true));
+            return original.map(it -> immutableCopy(it, true));
         }
 
         Optional<Map<String, Object>> result = original;
@@ -55,72 +63,119 @@ public class MapMerge {
         return result;
     }
 
+    /**
+     * Returns a mutable deep copy of the given map, e.g. of a result of {@link #deepMerge}.
+     */
+    public static Map<String, Object> mutableCopy(Map<String, Object> map) {
+        Map<String, Object> result = new HashMap<>();
+        map.forEach((key, value) -> result.put(key, mutableCopyOfValue(value)));
+        return result;
+    }
+
+    private static Object mutableCopyOfValue(Object value) {
+        if (value instanceof Map) {
+            return mutableCopy((Map<String, Object>) value);
+        }
+
+        if (value instanceof List) {
+            List<Object> result = new ArrayList<>();
+            ((List<Object>) value).forEach(item -> result.add(mutableCopyOfValue(item)));
+            return result;
+        }
+
+        return value;
+    }
+
     /**
      * Deep merge Maps with semantics almost as defined in
      * <a href="https://datatracker.ietf.org/doc/html/rfc7386">https://datatracker.ietf.org/doc/html/rfc7386</a>.
      * There is one exception: Merging two lists is done by concatenating them.
-     * Returns the result.
+     * Returns the result, which is the original map itself if the patch does not change it.
      */
-    private static Map<String, Object> deepMerge(Map<String, Object> original, Map<String, Object> patch) {
-        Map<String, Object> result = deepCopy(original, true);
+    private static ImmutableMap deepMerge(Map<String, Object> original, Map<String, Object> patch) {
+        ImmutableMap base = immutableCopy(original, true);
+        Map<String, Object> result = null;
         for (Map.Entry<String, Object> patchEntry : patch.entrySet()) {
             String key = patchEntry.getKey();
-            Object originalValue = original.get(key);
+            Object originalValue = base.get(key);
             Object patchValue = patchEntry.getValue();
             if (patchValue == null) {
-                result.remove(key);
+                if (base.containsKey(key)) {
+                    result = result == null ? base.mutableShallowCopy() : result;
+                    result.remove(key);
+                }
                 continue;
             }
 
+            Object mergedValue;
             if (originalValue instanceof Map && patchValue instanceof Map) {
-                result.put(key, deepMerge((Map<String, Object>)originalValue, (Map<String, Object>)patchValue));
-                continue;
+                mergedValue = deepMerge((Map<String, Object>) originalValue, (Map<String, Object>) patchValue);
+            } else if (originalValue instanceof List && patchValue instanceof List) {
+                mergedValue = concat((ImmutableList) originalValue, immutableCopy((List<Object>) patchValue, false));
+            } else {
+                mergedValue = immutableCopy(patchValue, false);
             }
 
-            if (originalValue instanceof List && patchValue instanceof List) {
-                result.put(key, union(deepCopy((List<Object>) originalValue, true), deepCopy((List<Object>) patchValue, false)));
+            if (mergedValue == originalValue) {
                 continue;
             }
+            result = result == null ? base.mutableShallowCopy() : result;
+            result.put(key, mergedValue);
+        }
+        return result == null ? base : new ImmutableMap(result);
+    }
 
-            if (patchValue instanceof Map) {
-                result.put(key, deepCopy((Map<String, Object>)patchValue, false));
-                continue;
-            }
+    private static ImmutableList concat(ImmutableList first, ImmutableList second) {
+        if (second.isEmpty()) {
+            return first;
+        }
+        if (first.isEmpty()) {
+            return second;
+        }
+        Object[] elements = new Object[first.size() + second.size()];
+        System.arraycopy(first.elements, 0, elements, 0, first.size());
+        System.arraycopy(second.elements, 0, elements, first.size(), second.size());
+        return new ImmutableList(elements);
+    }
 
-            if (patchValue instanceof List) {
-                result.put(key, deepCopy((List<Object>)patchValue, false));
-                continue;
-            }
+    private static Object immutableCopy(Object value, boolean keepNullValuesInMaps) {
+        if (value instanceof Map) {
+            return immutableCopy((Map<String, Object>) value, keepNullValuesInMaps);
+        }
 
-            result.put(key, patchValue);
+        if (value instanceof List) {
+            return immutableCopy((List<Object>) value, keepNullValuesInMaps);
         }
-        return result;
-    }
 
-    @SafeVarargs
-    private static <T> List<T> union(List<T>... lists) {
-        return Stream.of(lists).flatMap(List::stream).collect(Collectors.toList());
+        return value;
     }
 
-    private static List<Object> deepCopy(List<Object> list, boolean keepNullValuesInMaps) {
-        List<Object> result = new ArrayList<>();
-        for (Object item : list) {
-            if (item instanceof Map) {
-                result.add(deepCopy((Map<String, Object>) item, keepNullValuesInMaps));
-                continue;
-            }
-
-            if (item instanceof List) {
-                result.add(deepCopy((List<Object>) item, keepNullValuesInMaps));
-                continue;
-            }
+    /**
+     * Returns an immutable deep copy of the given list. Lists which already are immutable copies are returned as
+     * they are, unless null values have to be removed from maps within them.
+     */
+    private static ImmutableList immutableCopy(List<Object> list, boolean keepNullValuesInMaps) {
+        if (list instanceof ImmutableList && (keepNullValuesInMaps || !((ImmutableList) list).containsNullValuesInMaps)) {
+            return (ImmutableList) list;
+        }
 
-            result.add(item);
+        Object[] elements = new Object[list.size()];
+        int i = 0;
+        for (Object item : list) {
+            elements[i++] = immutableCopy(item, keepNullValuesInMaps);
         }
-        return result;
+        return new ImmutableList(elements);
     }
 
-    private static Map<String, Object> deepCopy(Map<String, Object> map, boolean keepNullValuesInMaps) {
+    /**
+     * Returns an immutable deep copy of the given map. Maps which already are immutable copies are returned as they
+     * are, unless null values have to be removed from them.
+     */
+    private static ImmutableMap immutableCopy(Map<String, Object> map, boolean keepNullValuesInMaps) {
+        if (map instanceof ImmutableMap && (keepNullValuesInMaps || !((ImmutableMap) map).containsNullValuesInMaps)) {
+            return (ImmutableMap) map;
+        }
+
         Map<String, Object> result = new HashMap<>();
         for (Map.Entry<String, Object> entry : map.entrySet()) {
             String key = entry.getKey();
@@ -130,19 +185,104 @@ public class MapMerge {
                 continue;
             }
 
-            if (value instanceof Map) {
-                result.put(key, deepCopy((Map<String, Object>) value, keepNullValuesInMaps));
-                continue;
+            result.put(key, immutableCopy(value, keepNullValuesInMaps));
+        }
+        return new ImmutableMap(result);
+    }
+
+    private static boolean containsNullValuesInMaps(Object value) {
+        if (value instanceof ImmutableMap) {
+            return ((ImmutableMap) value).containsNullValuesInMaps;
+        }
+        if (value instanceof ImmutableList) {
+            return ((ImmutableList) value).containsNullValuesInMaps;
+        }
+        return false;
+    }
+
+    /**
+     * A map which cannot be modified and whose values are immutable as well.
+     */
+    private static final class ImmutableMap extends AbstractMap<String, Object> {
+        private final Map<String, Object> map;
+        private final Set<Entry<String, Object>> entrySet;
+        private final boolean containsNullValuesInMaps;
+        private int hashCode;
+
+        private ImmutableMap(Map<String, Object> map) {
+            this.map = map;
+            this.entrySet = Collections.unmodifiableMap(map).entrySet();
+            this.containsNullValuesInMaps = map.values().stream()
+                    .anyMatch(value -> value == null || MapMerge.containsNullValuesInMaps(value));
+        }
+
+        private Map<String, Object> mutableShallowCopy() {
+            return new HashMap<>(map);
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return entrySet;
+        }
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return map.containsKey(key);
+        }
+
+        @Override
+        public Object get(Object key) {
+            return map.get(key);
+        }
+
+        @Override
+        public int hashCode() {
+            if (hashCode == 0) {
+                hashCode = map.hashCode();
             }
+            return hashCode;
+        }
+    }
 
-            if (value instanceof List) {
-                result.put(key, deepCopy((List<Object>) value, keepNullValuesInMaps));
-                continue;
+    /**
+     * A list which cannot be modified and whose elements are immutable as well.
+     */
+    private static final class ImmutableList extends AbstractList<Object> implements RandomAccess {
+        private final Object[] elements;
+        private final boolean containsNullValuesInMaps;
+        private int hashCode;
+
+        private ImmutableList(Object[] elements) {
+            this.elements = elements;
+            boolean nullValuesInMaps = false;
+            for (Object element : elements) {
+                nullValuesInMaps |= MapMerge.containsNullValuesInMaps(element);
             }
+            this.containsNullValuesInMaps = nullValuesInMaps;
+        }
 
-            result.put(key, value);
+        @Override
+        public Object get(int index) {
+            return elements[index];
+        }
+
+        @Override
+        public int size() {
+            return elements.length;
+        }
+
+        @Override
+        public int hashCode() {
+            if (hashCode == 0) {
+                hashCode = super.hashCode();
+            }
+            return hashCode;
         }
-        return result;
     }
 
 }
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2022 Jan Bretschneider <mail@jan-bretschneider.de>
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You can find the License in the `LICENSE` file at the top level of
+ * this repository or may obtain a copy at
+ *
+ *   https://raw.githubusercontent.com/jbretsch/openapi-route-definition-locator/master/LICENSE
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package net.bretti.openapi.route.definition.locator.core.impl
+
+import org.springframework.cloud.gateway.filter.FilterDefinition
+import org.springframework.cloud.gateway.handler.predicate.PredicateDefinition
+import spock.lang.Specification
+
+class DefinitionInternerTest extends Specification {
+
+    DefinitionInterner interner = new DefinitionInterner()
+
+    def "equal definitions share one instance with unmodifiable arguments"() {
+        when:
+        FilterDefinition first = interner.intern(new FilterDefinition("AddResponseHeader=X-Foo, bar"))
+        FilterDefinition second = interner.intern(new FilterDefinition("AddResponseHeader=X-Foo, bar"))
+        PredicateDefinition predicate = interner.intern(new PredicateDefinition("Header=Authorization"))
+
+        then:
+        first.is(second)
+        interner.intern(new PredicateDefinition("Header=Authorization")).is(predicate)
+
+        when:
+        first.args.put("foo", "bar")
+
+        then:
+        thrown(UnsupportedOperationException)
+    }
+
+    def "different definitions are not shared"() {
+        expect:
+        !interner.intern(new FilterDefinition("AddResponseHeader=X-Foo, bar"))
+                .is(interner.intern(new FilterDefinition("AddResponseHeader=X-Foo, baz")))
+    }
+
+    def "equal lists of definitions share one unmodifiable instance"() {
+        when:
+        List<FilterDefinition> first = interner.internFilters([new FilterDefinition("StripPrefix=1"), new FilterDefinition("PrefixPath=/api")])
+        List<FilterDefinition> second = interner.internFilters([new FilterDefinition("StripPrefix=1"), new FilterDefinition("PrefixPath=/api")])
+
+        then:
+        first.is(second)
+
+        when:
+        first.add(new FilterDefinition("StripPrefix=2"))
+
+        then:
+        thrown(UnsupportedOperationException)
+    }
+
+    def "definitions of the seeding operations are reused"() {
+        given:
+        FilterDefinition registeredFilter = new FilterDefinition("StripPrefix=1")
+        PredicateDefinition registeredPredicate = new PredicateDefinition("Header=Authorization")
+        List<FilterDefinition> registeredFilters = [registeredFilter]
+        OpenApiOperation registeredOperation = OpenApiOperation.builder()
+                .filters(registeredFilters)
+                .predicates([registeredPredicate])
+                .build()
+
+        when:
+        DefinitionInterner seededInterner = DefinitionInterner.seededWith([registeredOperation])
+
+        then:
+        seededInterner.intern(new FilterDefinition("StripPrefix=1")).is(registeredFilter)
+        seededInterner.intern(new PredicateDefinition("Header=Authorization")).is(registeredPredicate)
+        seededInterner.internFilters([new FilterDefinition("StripPrefix=1")]).is(registeredFilters)
+    }
+
+    def "equal maps of extensions share one unmodifiable instance"() {
+        when:
+        Map<String, Object> first = interner.internExtensions(["x-auth-type": "Bearer"])
+        Map<String, Object> second = interner.internExtensions(["x-auth-type": "Bearer"])
+
+        then:
+        first.is(second)
+        interner.internExtensions([:]).is(Collections.emptyMap())
+
+        when:
+        first.put("x-foo", "bar")
+
+        then:
+        thrown(UnsupportedOperationException)
+    }
+
+}
@@ -0,0 +1,308 @@
+/*
+ * Copyright (c) 2022 Jan Bretschneider <mail@jan-bretschneider.de>
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You can find the License in the `LICENSE` file at the top level of
+ * this repository or may obtain a copy at
+ *
+ *   https://raw.githubusercontent.com/jbretsch/openapi-route-definition-locator/master/LICENSE
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package net.bretti.openapi.route.definition.locator.core.impl
+
+import net.bretti.openapi.route.definition.locator.core.config.OpenApiRouteDefinitionLocatorProperties
+import org.springframework.cloud.gateway.event.RefreshRoutesEvent
+import org.springframework.context.ApplicationEventPublisher
+import org.springframework.core.io.ByteArrayResource
+import org.springframework.core.io.Resource
+import org.springframework.core.io.ResourceLoader
+import org.springframework.http.HttpMethod
+import reactor.core.publisher.Mono
+import reactor.core.scheduler.Schedulers
+import spock.lang.Specification
+import spock.lang.TempDir
+import spock.util.concurrent.PollingConditions
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.time.Duration
+import java.time.Instant
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.atomic.AtomicInteger
+
+class OpenApiDefinitionRepositoryTest extends Specification {
+
+    @TempDir
+    Path tempDir
+
+    static final String OPENAPI_DEFINITION = """
+        openapi: "3.0.3"
+        paths:
+          /users:
+            get:
+              operationId: getUsers
+        """.stripIndent()
+
+    OpenApiRouteDefinitionLocatorProperties properties = new OpenApiRouteDefinitionLocatorProperties()
+    ConcurrentHashMap<OpenApiRouteDefinitionLocatorProperties.Service, List<OpenApiOperation>> operations = new ConcurrentHashMap<>()
+    AtomicInteger retrievals = new AtomicInteger()
+    AtomicInteger publications = new AtomicInteger()
+    List<Object> publishedEvents = Collections.synchronizedList([])
+    AtomicInteger concurrentRetrievals = new AtomicInteger()
+    AtomicInteger maxConcurrentRetrievals = new AtomicInteger()
+    List<String> retrievedLocations = Collections.synchronizedList([])
+    CountDownLatch hangingServiceReleased = new CountDownLatch(1)
+
+    // The services use a scheme other than http(s), so that their OpenAPI definitions are read from the returned
+    // resources without opening a URL connection.
+    ResourceLoader resourceLoader = [
+            getResource   : { String location ->
+                retrievals.incrementAndGet()
+                retrievedLocations.add(location)
+                maxConcurrentRetrievals.accumulateAndGet(concurrentRetrievals.incrementAndGet(), { a, b -> Math.max(a, b) })
+                if (location.contains("failing-service")) {
+                    throw new FileNotFoundException(location)
+                }
+                if (location.contains("hanging-service")) {
+                    hangingServiceReleased.await()
+                }
+                Thread.sleep(location.contains("slow-service") ? 1500 : 200)
+                concurrentRetrievals.decrementAndGet()
+                return new ByteArrayResource(OPENAPI_DEFINITION.bytes) as Resource
+            },
+            getClassLoader: { getClass().getClassLoader() }
+    ] as ResourceLoader
+
+    OpenApiDefinitionRepository repository = new OpenApiDefinitionRepository(
+            properties, operations, new ConcurrentHashMap<>(), { event ->
+                publications.incrementAndGet()
+                publishedEvents.add(event)
+            } as ApplicationEventPublisher,
+            Optional.empty(), new OpenApiDefinitionRetriever(properties, resourceLoader, Optional.empty()),
+            new StreamingOpenApiDefinitionParser(), Schedulers.boundedElastic(), Optional.empty())
+
+    OpenApiRouteDefinitionLocatorProperties.Service userService = new OpenApiRouteDefinitionLocatorProperties.Service(
+            id: "user-service", uri: URI.create("test://user-service"))
+
+    def setup() {
+        properties.services = [userService]
+    }
+
+    def cleanup() {
+        hangingServiceReleased.countDown()
+    }
+
+    def "OpenAPI definitions of several services are retrieved concurrently, but not more than configured"() {
+        given:
+        properties.updateScheduler.parallelism = 2
+        properties.services = (1..6).collect {
+            new OpenApiRouteDefinitionLocatorProperties.Service(id: "service-${it}", uri: URI.create("test://service-${it}"))
+        }
+
+        when:
+        repository.loadInitially(Duration.ofMinutes(1))
+
+        then: 'retrievals overlapped, but never more than two at once'
+        retrievals.get() == 6
+        maxConcurrentRetrievals.get() == 2
+        repository.getLoadedServicesCount() == 6
+    }
+
+    def "concurrent refreshes of a service share a single retrieval"() {
+        when:
+        List<Boolean> results = Mono.zip(
+                repository.refreshOperations(userService),
+                repository.refreshOperations(userService)
+        ).map { [it.t1, it.t2] }.block()
+
+        then:
+        results == [true, true]
+        retrievals.get() == 1
+        publications.get() == 1
+        operations.get(userService)*.path == ["/users"]
+    }
+
+    def "a refresh after a completed retrieval retrieves the OpenAPI definition again"() {
+        given:
+        repository.refreshOperations(userService).block()
+
+        when:
+        boolean result = repository.refreshOperations(userService).block()
+
+        then:
+        result
+        retrievals.get() == 2
+        publications.get() == 1
+    }
+
+    def "route refreshes are scoped to the changed service unless routes are ordered by hit count"() {
+        given:
+        properties.updateScheduler.scopedRouteRefresh = true
+        properties.orderRoutesByHitCount = orderRoutesByHitCount
+
+        when:
+        repository.refreshOperations(userService).block()
+
+        then:
+        publishedEvents.size() == 1
+        (publishedEvents[0] as RefreshRoutesEvent).metadata == expectedMetadata
+
+        where:
+        orderRoutesByHitCount | expectedMetadata
+        false                 | [(OpenApiRouteDefinitionLocator.METADATA_KEY_SERVICE_ID): "user-service"]
+        true                  | [:]
+    }
+
+    def "OpenAPI definitions are parsed again if the operations in the snapshot were extracted with other settings"() {
+        given: 'a snapshot with outdated operations, but the digest of the current OpenAPI definition'
+        OpenApiOperationsSnapshotStore store = new OpenApiOperationsSnapshotStore(tempDir.resolve("snapshot.json"))
+        OpenApiOperation outdatedOperation = OpenApiOperation.builder()
+                .baseUri(userService.uri)
+                .path("/outdated")
+                .httpMethod(HttpMethod.GET)
+                .build()
+        String digest = RetrievedOpenApiDefinition.of(OPENAPI_DEFINITION.bytes).contentDigest.get()
+        String fingerprint = sameSettings ? OpenApiOperationsSnapshotStore.extractionFingerprint(properties, userService) : "other"
+        store.write([(userService): [outdatedOperation]], [(userService): digest], { fingerprint })
+
+        and:
+        OpenApiDefinitionRepository repositoryWithSnapshot = new OpenApiDefinitionRepository(
+                properties, operations, new ConcurrentHashMap<>(), { publications.incrementAndGet() } as ApplicationEventPublisher,
+                Optional.empty(), new OpenApiDefinitionRetriever(properties, resourceLoader, Optional.empty()),
+                new StreamingOpenApiDefinitionParser(), Schedulers.boundedElastic(), Optional.of(store))
+
+        when:
+        repositoryWithSnapshot.loadSnapshot()
+
+        then:
+        operations.get(userService)*.path == ["/outdated"]
+
+        when:
+        repositoryWithSnapshot.refreshOperations(userService).block()
+
+        then:
+        operations.get(userService)*.path == expectedPaths
+
+        where:
+        sameSettings | expectedPaths
+        true         | ["/outdated"]
+        false        | ["/users"]
+    }
+
+    def "an unchanged snapshot is not written again after it was loaded"() {
+        given:
+        Path snapshotFile = tempDir.resolve("snapshot.json")
+        OpenApiOperationsSnapshotStore store = new OpenApiOperationsSnapshotStore(snapshotFile)
+        OpenApiOperation operation = OpenApiOperation.builder()
+                .baseUri(userService.uri)
+                .path("/users")
+                .httpMethod(HttpMethod.GET)
+                .build()
+        String digest = RetrievedOpenApiDefinition.of(OPENAPI_DEFINITION.bytes).contentDigest.get()
+        store.write([(userService): [operation]], [(userService): digest],
+                { OpenApiOperationsSnapshotStore.extractionFingerprint(properties, userService) })
+        OpenApiDefinitionRepository repositoryWithSnapshot = new OpenApiDefinitionRepository(
+                properties, operations, new ConcurrentHashMap<>(), { publications.incrementAndGet() } as ApplicationEventPublisher,
+                Optional.empty(), new OpenApiDefinitionRetriever(properties, resourceLoader, Optional.empty()),
+                new StreamingOpenApiDefinitionParser(), Schedulers.boundedElastic(), Optional.of(store))
+
+        when: 'the snapshot is loaded and the unchanged OpenAPI definition is retrieved'
+        repositoryWithSnapshot.loadSnapshot()
+        Files.delete(snapshotFile)
+        repositoryWithSnapshot.refreshOperations(userService).block()
+
+        then: 'the snapshot is not written again'
+        !Files.exists(snapshotFile)
+        publications.get() == 0
+    }
+
+    def "retrievals which are not done when the initial load times out keep running in the background"() {
+        given:
+        properties.updateScheduler.publicationMode = publicationMode
+        OpenApiRouteDefinitionLocatorProperties.Service slowService = new OpenApiRouteDefinitionLocatorProperties.Service(
+                id: "slow-service", uri: URI.create("test://slow-service"))
+        properties.services = [userService, slowService]
+
+        when:
+        repository.loadInitially(Duration.ofMillis(800))
+
+        then: 'only the fast service is loaded in time'
+        operations.keySet() == [userService] as Set
+
+        and: 'the slow service is loaded as soon as its retrieval is done'
+        new PollingConditions(timeout: 5).eventually {
+            assert operations.keySet() == [userService, slowService] as Set
+        }
+        retrievals.get() == 2
+
+        where:
+        publicationMode << OpenApiRouteDefinitionLocatorProperties.PublicationMode.values()
+    }
+
+    def "a hanging service does not hold up the scheduled updates of the other services"() {
+        given:
+        properties.updateScheduler.fixedDelay = Duration.ofMillis(100)
+        OpenApiRouteDefinitionLocatorProperties.Service hangingService = new OpenApiRouteDefinitionLocatorProperties.Service(
+                id: "hanging-service", uri: URI.create("test://hanging-service"))
+        properties.services = [hangingService, userService]
+
+        when: 'the scheduler checks for due services while the hanging service does not answer'
+        15.times {
+            repository.getOpenApiDefinitions()
+            Thread.sleep(100)
+        }
+
+        then: 'the other service is updated on its own schedule'
+        operations.keySet() == [userService] as Set
+        retrievedLocations.count { it.contains("user-service") } >= 3
+
+        and: 'the hanging service is not retrieved again while its retrieval is still running'
+        retrievedLocations.count { it.contains("hanging-service") } == 1
+    }
+
+    def "a failed update is counted once even if publishing the de-registration of the service fails"() {
+        given:
+        properties.updateScheduler.backoff.enabled = true
+        properties.updateScheduler.backoff.failureThreshold = 2
+        OpenApiRouteDefinitionLocatorProperties.Service failingService = new OpenApiRouteDefinitionLocatorProperties.Service(
+                id: "failing-service", uri: URI.create("test://failing-service"))
+        properties.services = [failingService]
+        operations.put(failingService, [OpenApiOperation.builder()
+                .baseUri(failingService.uri)
+                .path("/failing")
+                .httpMethod(HttpMethod.GET)
+                .build()])
+
+        and: 'the retrievals of the service keep failing for longer than the routes are kept'
+        ConcurrentHashMap<OpenApiRouteDefinitionLocatorProperties.Service, Instant> firstRetrievalFailures =
+                new ConcurrentHashMap<>([(failingService): Instant.now().minus(Duration.ofHours(1))])
+        OpenApiDefinitionRepository repositoryFailingToPublish = new OpenApiDefinitionRepository(
+                properties, operations, firstRetrievalFailures, { throw new IllegalStateException("Publication failed") } as ApplicationEventPublisher,
+                Optional.empty(), new OpenApiDefinitionRetriever(properties, resourceLoader, Optional.empty()),
+                new StreamingOpenApiDefinitionParser(), Schedulers.boundedElastic(), Optional.empty())
+
+        when:
+        boolean success = repositoryFailingToPublish.refreshOperations(failingService).block()
+
+        then: 'the operations are de-registered and only one failure is recorded'
+        !success
+        !operations.containsKey(failingService)
+        repositoryFailingToPublish.getCircuitState(failingService) == UpdateSchedule.CircuitState.CLOSED
+
+        when:
+        repositoryFailingToPublish.refreshOperations(failingService).block()
+
+        then: 'the circuit opens after the second failure'
+        repositoryFailingToPublish.getCircuitState(failingService) == UpdateSchedule.CircuitState.OPEN
+    }
+
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2022 Jan Bretschneider <mail@jan-bretschneider.de>
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You can find the License in the `LICENSE` file at the top level of
+ * this repository or may obtain a copy at
+ *
+ *   https://raw.githubusercontent.com/jbretsch/openapi-route-definition-locator/master/LICENSE
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package net.bretti.openapi.route.definition.locator.core.impl
+
+import com.sun.net.httpserver.HttpExchange
+import com.sun.net.httpserver.HttpHandler
+import com.sun.net.httpserver.HttpServer
+import net.bretti.openapi.route.definition.locator.core.config.OpenApiRouteDefinitionLocatorProperties
+import org.springframework.core.io.DefaultResourceLoader
+import org.springframework.web.reactive.function.client.WebClient
+import reactor.core.publisher.Mono
+import spock.lang.Specification
+
+import java.time.Duration
+
+class OpenApiDefinitionRetrieverTest extends Specification {
+
+    OpenApiRouteDefinitionLocatorProperties properties = new OpenApiRouteDefinitionLocatorProperties()
+    OpenApiDefinitionRetriever retriever = new OpenApiDefinitionRetriever(
+            properties, new DefaultResourceLoader(), Optional.of(WebClient.builder()))
+    int closedPort = new ServerSocket(0).withCloseable { it.localPort }
+
+    def cleanup() {
+        retriever.destroy()
+    }
+
+    def "the WebClient connects with the connect timeout of each service"() {
+        given:
+        properties.retrieval.connectTimeout = Duration.ofSeconds(10)
+        List<OpenApiRouteDefinitionLocatorProperties.Service> services = [
+                service("user-service", Duration.ofMillis(500)),
+                service("order-service", null),
+                service("product-service", Duration.ofMillis(500)),
+        ]
+
+        when:
+        services.each { retriever.retrieve(it, Optional.empty()).onErrorResume { Mono.empty() }.block() }
+
+        then: 'one client is created per effective connect timeout'
+        retriever.webClients.keySet() == [Duration.ofMillis(500), Duration.ofSeconds(10)] as Set
+    }
+
+    private OpenApiRouteDefinitionLocatorProperties.Service service(String id, Duration connectTimeout) {
+        OpenApiRouteDefinitionLocatorProperties.Service service = new OpenApiRouteDefinitionLocatorProperties.Service(
+                id: id, uri: URI.create("http://localhost:${closedPort}"))
+        service.retrieval.connectTimeout = connectTimeout
+        return service
+    }
+
+    def "the ResourceLoader sends conditional requests and recognizes unmodified OpenAPI definitions"() {
+        given:
+        List<String> ifNoneMatchHeaders = Collections.synchronizedList([])
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0)
+        server.createContext("/internal/openapi-definition", { HttpExchange exchange ->
+            String ifNoneMatch = exchange.requestHeaders.getFirst("If-None-Match")
+            ifNoneMatchHeaders << ifNoneMatch
+            exchange.responseHeaders.add("ETag", '"v1"')
+            if (ifNoneMatch == '"v1"') {
+                exchange.sendResponseHeaders(304, -1)
+            } else {
+                byte[] body = "openapi: 3.0.1".bytes
+                exchange.sendResponseHeaders(200, body.length)
+                exchange.responseBody.write(body)
+            }
+            exchange.close()
+        } as HttpHandler)
+        server.start()
+        OpenApiDefinitionRetriever resourceLoaderRetriever =
+                new OpenApiDefinitionRetriever(properties, new DefaultResourceLoader(), Optional.empty())
+        OpenApiRouteDefinitionLocatorProperties.Service service = new OpenApiRouteDefinitionLocatorProperties.Service(
+                id: "user-service", uri: URI.create("http://localhost:${server.address.port}"))
+
+        when:
+        RetrievedOpenApiDefinition first = resourceLoaderRetriever.retrieve(service, Optional.empty()).block()
+        RetrievedOpenApiDefinition second = resourceLoaderRetriever.retrieve(service, Optional.of(first.cacheValidators)).block()
+
+        then:
+        first.content == Optional.of("openapi: 3.0.1")
+        first.cacheValidators.ETag == Optional.of('"v1"')
+        second.content.isEmpty()
+        ifNoneMatchHeaders == [null, '"v1"']
+
+        cleanup:
+        server.stop(0)
+    }
+}
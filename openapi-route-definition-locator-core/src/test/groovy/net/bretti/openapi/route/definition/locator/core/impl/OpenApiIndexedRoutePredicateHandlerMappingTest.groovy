@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2022 Jan Bretschneider <mail@jan-bretschneider.de>
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You can find the License in the `LICENSE` file at the top level of
+ * this repository or may obtain a copy at
+ *
+ *   https://raw.githubusercontent.com/jbretsch/openapi-route-definition-locator/master/LICENSE
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package net.bretti.openapi.route.definition.locator.core.impl
+
+import org.springframework.cloud.gateway.config.GlobalCorsProperties
+import org.springframework.cloud.gateway.handler.AsyncPredicate
+import org.springframework.cloud.gateway.handler.FilteringWebHandler
+import org.springframework.cloud.gateway.handler.predicate.PathRoutePredicateFactory
+import org.springframework.cloud.gateway.handler.predicate.PredicateDefinition
+import org.springframework.cloud.gateway.route.Route
+import org.springframework.cloud.gateway.route.RouteDefinition
+import org.springframework.cloud.gateway.route.RouteLocator
+import org.springframework.core.env.StandardEnvironment
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest
+import org.springframework.mock.web.server.MockServerWebExchange
+import org.springframework.web.server.ServerWebExchange
+import reactor.core.publisher.Flux
+import reactor.core.publisher.Mono
+import spock.lang.Specification
+
+import java.util.function.Predicate
+
+class OpenApiIndexedRoutePredicateHandlerMappingTest extends Specification {
+
+    OpenApiRoutePathIndex index = new OpenApiRoutePathIndex()
+    List<Route> routes = []
+    List<String> evaluatedRouteIds = Collections.synchronizedList([])
+
+    OpenApiIndexedRoutePredicateHandlerMapping handlerMapping = new OpenApiIndexedRoutePredicateHandlerMapping(
+            new FilteringWebHandler([], false), { Flux.fromIterable(routes) } as RouteLocator,
+            new GlobalCorsProperties(), new StandardEnvironment(), index)
+
+    def setup() {
+        List<RouteDefinition> indexedRouteDefinitions = [
+                routeDefinition("users", "/users", true),
+                routeDefinition("user", "/users/{userId}", false),
+                routeDefinition("orders", "/orders", false),
+        ]
+        index.update(indexedRouteDefinitions)
+        indexedRouteDefinitions.each { routes << route(it.id, it.predicates[0]) }
+        // A route of another route locator, which is not indexed.
+        routes << route("legacy", new PredicateDefinition("Path=/legacy/**"))
+    }
+
+    def "only the predicates of the candidate routes are evaluated"() {
+        when:
+        Route route = handlerMapping.lookupRoute(exchange("/users/42")).block()
+
+        then:
+        route.id == "user"
+        evaluatedRouteIds == ["user"]
+    }
+
+    def "routes which are not indexed are still evaluated"() {
+        when:
+        Route route = handlerMapping.lookupRoute(exchange("/legacy/users")).block()
+
+        then:
+        route.id == "legacy"
+        evaluatedRouteIds == ["legacy"]
+    }
+
+    def "a trailing slash is matched by routes configured to match it"() {
+        expect:
+        handlerMapping.lookupRoute(exchange(path)).block()?.id == expectedRouteId
+
+        where:
+        path       | expectedRouteId
+        "/users/"  | "users"
+        "/orders/" | null
+    }
+
+    def "no route matches a path without candidates"() {
+        when:
+        Route route = handlerMapping.lookupRoute(exchange("/unknown")).block()
+
+        then:
+        route == null
+        evaluatedRouteIds == ["legacy"]
+    }
+
+    def "routes are found by the raw request path if a base path is set"() {
+        given:
+        RouteDefinition basePathRouteDefinition = routeDefinition("base-path-user", "/api/users/{userId}", false)
+        index.update([basePathRouteDefinition])
+        routes.clear()
+        routes << route(basePathRouteDefinition.id, basePathRouteDefinition.predicates[0])
+
+        when:
+        Route route = handlerMapping.lookupRoute(MockServerWebExchange.from(
+                MockServerHttpRequest.get("/api/users/42").contextPath("/api"))).block()
+
+        then:
+        route.id == "base-path-user"
+        evaluatedRouteIds == ["base-path-user"]
+    }
+
+    private Route route(String id, PredicateDefinition pathPredicateDefinition) {
+        List<String> patterns = pathPredicateDefinition.args.findAll { it.key != "matchTrailingSlash" }.values() as List
+        Predicate<ServerWebExchange> pathPredicate = new PathRoutePredicateFactory().apply(new PathRoutePredicateFactory.Config()
+                .setPatterns(patterns)
+                .setMatchTrailingSlash(Boolean.parseBoolean(pathPredicateDefinition.args.get("matchTrailingSlash"))))
+        return Route.async()
+                .id(id)
+                .uri(URI.create("http://localhost"))
+                .asyncPredicate({ ServerWebExchange exchange ->
+                    evaluatedRouteIds << id
+                    return Mono.just(pathPredicate.test(exchange))
+                } as AsyncPredicate<ServerWebExchange>)
+                .build()
+    }
+
+    private static RouteDefinition routeDefinition(String id, String pattern, boolean matchTrailingSlash) {
+        PredicateDefinition pathPredicate = new PredicateDefinition()
+        pathPredicate.setName("Path")
+        pathPredicate.setArgs([patterns: pattern, matchTrailingSlash: String.valueOf(matchTrailingSlash)])
+        RouteDefinition routeDefinition = new RouteDefinition()
+        routeDefinition.setId(id)
+        routeDefinition.setPredicates([pathPredicate])
+        return routeDefinition
+    }
+
+    private static ServerWebExchange exchange(String path) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get(path))
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2022 Jan Bretschneider <mail@jan-bretschneider.de>
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You can find the License in the `LICENSE` file at the top level of
+ * this repository or may obtain a copy at
+ *
+ *   https://raw.githubusercontent.com/jbretsch/openapi-route-definition-locator/master/LICENSE
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package net.bretti.openapi.route.definition.locator.core.impl
+
+import net.bretti.openapi.route.definition.locator.core.config.OpenApiRouteDefinitionLocatorProperties
+import org.springframework.cloud.gateway.filter.FilterDefinition
+import org.springframework.cloud.gateway.handler.predicate.PredicateDefinition
+import org.springframework.http.HttpMethod
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+class OpenApiOperationsSnapshotStoreTest extends Specification {
+
+    @TempDir
+    Path tempDir
+
+    OpenApiRouteDefinitionLocatorProperties.Service service = new OpenApiRouteDefinitionLocatorProperties.Service(
+            id: "user-service", uri: URI.create("http://user-service:8080"))
+
+    def "written operations are loaded again"() {
+        given:
+        OpenApiOperationsSnapshotStore store = new OpenApiOperationsSnapshotStore(tempDir.resolve("snapshot.json"))
+        OpenApiOperation operation = OpenApiOperation.builder()
+                .baseUri(service.uri)
+                .path("/users/{userId}")
+                .httpMethod(HttpMethod.GET)
+                .filters([new FilterDefinition("AddResponseHeader=X-Foo, bar")])
+                .predicates([new PredicateDefinition("Header=Authorization")])
+                .order(Optional.of(5))
+                .metadata(Optional.of([key: 'value', nested: [list: [1, 2]]] as Map<String, Object>))
+                .openApiExtension(['x-global': 'value'] as Map<String, Object>)
+                .openApiOperationExtension(['x-operation': [a: 'b']] as Map<String, Object>)
+                .build()
+
+        when:
+        store.write([(service): [operation]], [(service): "digest-1"], { "fingerprint-1" })
+        Map<String, OpenApiOperationsSnapshotStore.ServiceSnapshot> loaded = store.load()
+
+        then:
+        loaded.keySet() == ["user-service"] as Set
+        loaded["user-service"].contentDigest == "digest-1"
+        loaded["user-service"].extractionFingerprint == "fingerprint-1"
+        loaded["user-service"].toOpenApiOperations(service) == [operation]
+
+        and: 'no temporary files are left behind'
+        Files.list(tempDir).count() == 1
+    }
+
+    def "missing, unreadable and incompatible snapshots are ignored"() {
+        given:
+        Path file = tempDir.resolve("snapshot.json")
+        if (content != null) {
+            Files.writeString(file, content)
+        }
+
+        expect:
+        new OpenApiOperationsSnapshotStore(file).load().isEmpty()
+
+        where:
+        content << [null, "{ not json", '{"version": 999, "services": {"user-service": {"operations": []}}}']
+    }
+
+    def "the extraction fingerprint changes with the settings the operations are extracted with"() {
+        given:
+        OpenApiRouteDefinitionLocatorProperties properties = new OpenApiRouteDefinitionLocatorProperties()
+        String fingerprint = OpenApiOperationsSnapshotStore.extractionFingerprint(properties, service)
+
+        expect:
+        OpenApiOperationsSnapshotStore.extractionFingerprint(properties, service) == fingerprint
+
+        when:
+        modifier.call(properties, service)
+
+        then:
+        OpenApiOperationsSnapshotStore.extractionFingerprint(properties, service) != fingerprint
+
+        where:
+        modifier << [
+                { p, s -> p.parsing.engine = OpenApiRouteDefinitionLocatorProperties.ParsingEngine.STREAMING },
+                { p, s -> p.parsing.parseOptions.resolve = true },
+                { p, s -> s.parseOptions.flatten = true },
+                { p, s -> p.parsing.retainedExtensions = ["x-gateway-route-settings"] },
+        ]
+    }
+}
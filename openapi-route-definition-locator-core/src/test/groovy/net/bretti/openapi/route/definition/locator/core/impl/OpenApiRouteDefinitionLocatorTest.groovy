@@ -0,0 +1,348 @@
+/*
+ * Copyright (c) 2022 Jan Bretschneider <mail@jan-bretschneider.de>
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You can find the License in the `LICENSE` file at the top level of
+ * this repository or may obtain a copy at
+ *
+ *   https://raw.githubusercontent.com/jbretsch/openapi-route-definition-locator/master/LICENSE
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package net.bretti.openapi.route.definition.locator.core.impl
+
+import net.bretti.openapi.route.definition.locator.core.config.OpenApiRouteDefinitionLocatorProperties
+import net.bretti.openapi.route.definition.locator.core.customizer.OpenApiRouteDefinitionCustomizer
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent
+import org.springframework.cloud.gateway.filter.FilterDefinition
+import org.springframework.cloud.gateway.handler.predicate.PredicateDefinition
+import org.springframework.cloud.gateway.route.RouteDefinition
+import org.springframework.http.HttpMethod
+import spock.lang.Specification
+
+import java.util.concurrent.ConcurrentHashMap
+
+class OpenApiRouteDefinitionLocatorTest extends Specification {
+
+    OpenApiRouteDefinitionLocatorProperties properties = new OpenApiRouteDefinitionLocatorProperties()
+    ConcurrentHashMap<OpenApiRouteDefinitionLocatorProperties.Service, List<OpenApiOperation>> operations = new ConcurrentHashMap<>()
+    int customizerInvocations = 0
+    OpenApiRouteDefinitionCustomizer customizer = { routeDefinition, service, globalExtensions, operationExtensions ->
+        customizerInvocations++
+    } as OpenApiRouteDefinitionCustomizer
+
+    OpenApiDefinitionRepository repository = new OpenApiDefinitionRepository(
+            properties, operations, new ConcurrentHashMap<>(), null, Optional.empty(), null, null, null, Optional.empty())
+    OpenApiRouteDefinitionLocator locator = new OpenApiRouteDefinitionLocator(repository, [customizer], properties, Optional.empty(), Optional.empty())
+
+    OpenApiRouteDefinitionLocatorProperties.Service userService = service("user-service")
+    OpenApiRouteDefinitionLocatorProperties.Service orderService = service("order-service")
+
+    def "route definitions are only rebuilt for services whose operations changed"() {
+        given:
+        operations.put(userService, [operation(userService, "/users")])
+        operations.put(orderService, [operation(orderService, "/orders")])
+
+        when:
+        List<RouteDefinition> first = locator.getRouteDefinitions().collectList().block()
+
+        then:
+        first.size() == 2
+        customizerInvocations == 2
+
+        when: 'the operations of one service are replaced'
+        operations.put(orderService, [operation(orderService, "/orders"), operation(orderService, "/orders/{orderId}")])
+        List<RouteDefinition> second = locator.getRouteDefinitions().collectList().block()
+
+        then: 'only the route definitions of that service are rebuilt'
+        second.size() == 3
+        customizerInvocations == 4
+        second.find { it.id == routeIdOf(first, "/users") }.is(first.find { it.id == routeIdOf(first, "/users") })
+    }
+
+    def "route definitions are rebuilt when the settings they were created from change"() {
+        given:
+        operations.put(userService, [
+                operation(userService, HttpMethod.GET, "/users"),
+                operation(userService, HttpMethod.POST, "/users"),
+        ])
+        locator.getRouteDefinitions().collectList().block()
+
+        when: 'the default route settings are rebound'
+        properties.defaultRouteSettings.filters = [new FilterDefinition("AddResponseHeader=X-Global, global")]
+        propertiesChanged("openapi-route-definition-locator.default-route-settings.filters[0]")
+        List<RouteDefinition> routeDefinitions = locator.getRouteDefinitions().collectList().block()
+
+        then:
+        routeDefinitions.size() == 2
+        routeDefinitions*.filters*.name == [["AddResponseHeader"], ["AddResponseHeader"]]
+        customizerInvocations == 4
+
+        when: 'the routes are consolidated from now on'
+        properties.setConsolidateRoutes(true)
+        propertiesChanged("openapi-route-definition-locator.consolidate-routes")
+        routeDefinitions = locator.getRouteDefinitions().collectList().block()
+
+        then:
+        routeDefinitions.size() == 1
+        routeDefinitions[0].filters*.name == ["AddResponseHeader"]
+        customizerInvocations == 5
+
+        when: 'nothing changed'
+        locator.getRouteDefinitions().collectList().block()
+
+        then: 'the cached route definitions are used'
+        customizerInvocations == 5
+    }
+
+    def "changed default metadata and order are picked up by the cached route definitions"() {
+        given:
+        properties.defaultRouteSettings.metadata = [owner: "team-a"]
+        properties.defaultRouteSettings.order = Optional.of(1)
+        operations.put(userService, [operation(userService, "/users")])
+        locator.getRouteDefinitions().collectList().block()
+
+        when: 'the global default route settings are rebound'
+        properties.defaultRouteSettings.metadata = [owner: "team-b"]
+        properties.defaultRouteSettings.order = Optional.of(2)
+        propertiesChanged("openapi-route-definition-locator.default-route-settings.metadata.owner",
+                "openapi-route-definition-locator.default-route-settings.order")
+        List<RouteDefinition> routeDefinitions = locator.getRouteDefinitions().collectList().block()
+
+        then:
+        routeDefinitions[0].metadata == [owner: "team-b"]
+        routeDefinitions[0].order == 2
+        customizerInvocations == 2
+
+        when: 'the service overrides the order'
+        userService.defaultRouteSettings.order = Optional.of(3)
+        propertiesChanged("openapi-route-definition-locator.services[0].default-route-settings.order")
+        routeDefinitions = locator.getRouteDefinitions().collectList().block()
+
+        then:
+        routeDefinitions[0].order == 3
+        customizerInvocations == 3
+    }
+
+    def "route definitions of removed services are not emitted anymore"() {
+        given:
+        operations.put(userService, [operation(userService, "/users")])
+        locator.getRouteDefinitions().collectList().block()
+
+        when:
+        operations.remove(userService)
+
+        then:
+        locator.getRouteDefinitions().collectList().block().isEmpty()
+    }
+
+    def "operations only differing in their HTTP method are consolidated into one route if enabled"() {
+        given:
+        properties.setConsolidateRoutes(true)
+        operations.put(userService, [
+                operation(userService, HttpMethod.GET, "/users"),
+                operation(userService, HttpMethod.GET, "/users/{userId}"),
+                operation(userService, HttpMethod.POST, "/users"),
+                operation(userService, HttpMethod.DELETE, "/users/{userId}", Optional.of(5)),
+        ])
+
+        when:
+        List<RouteDefinition> routeDefinitions = locator.getRouteDefinitions().collectList().block()
+
+        then:
+        routeDefinitions.size() == 3
+        routeDefinitions[0].predicates[0].name == "Method"
+        routeDefinitions[0].predicates[0].args.values() as List == ["GET", "POST"]
+        routeDefinitions[0].predicates[1].args.values() as List == ["/users"]
+        routeDefinitions[1].predicates[0].args.values() as List == ["GET"]
+        routeDefinitions[1].id == OpenApiRouteDefinitionLocator.routeId(userService, operation(userService, HttpMethod.GET, "/users/{userId}"))
+        routeDefinitions[2].predicates[0].args.values() as List == ["DELETE"]
+        routeDefinitions[2].order == 5
+        customizerInvocations == 3
+    }
+
+    def "operations are not consolidated by default"() {
+        given:
+        operations.put(userService, [
+                operation(userService, HttpMethod.GET, "/users"),
+                operation(userService, HttpMethod.POST, "/users"),
+        ])
+
+        expect:
+        locator.getRouteDefinitions().collectList().block().size() == 2
+    }
+
+    def "global and service default route settings are combined with the settings of each operation"() {
+        given:
+        properties.defaultRouteSettings.predicates = [new PredicateDefinition("Header=X-Global, .*")]
+        properties.defaultRouteSettings.filters = [new FilterDefinition("AddResponseHeader=X-Global, global")]
+        properties.defaultRouteSettings.metadata = [defaults: [global: "global"], overridden: "global"]
+        properties.defaultRouteSettings.order = Optional.of(1)
+        userService.defaultRouteSettings.predicates = [new PredicateDefinition("Header=X-Service, .*")]
+        userService.defaultRouteSettings.filters = [new FilterDefinition("AddResponseHeader=X-Service, service")]
+        userService.defaultRouteSettings.metadata = [defaults: [service: "service"], overridden: "service"]
+        userService.defaultRouteSettings.order = Optional.of(2)
+        operations.put(userService, [
+                OpenApiOperation.builder()
+                        .baseUri(userService.getUri())
+                        .httpMethod(HttpMethod.GET)
+                        .path("/users")
+                        .predicates([new PredicateDefinition("Header=X-Operation, .*")])
+                        .filters([new FilterDefinition("AddResponseHeader=X-Operation, operation")])
+                        .metadata(Optional.of([overridden: "operation"] as Map<String, Object>))
+                        .order(Optional.of(3))
+                        .build(),
+                operation(userService, "/users/{userId}"),
+        ])
+        OpenApiRouteDefinitionLocator locatorWithoutCustomizers =
+                new OpenApiRouteDefinitionLocator(repository, [], properties, Optional.empty(), Optional.empty())
+
+        when:
+        List<RouteDefinition> routeDefinitions = locatorWithoutCustomizers.getRouteDefinitions().collectList().block()
+
+        then:
+        routeDefinitions[0].predicates*.name == ["Method", "Path", "Header", "Header", "Header"]
+        routeDefinitions[0].predicates[2..4]*.args*.values()*.first() == ["X-Global", "X-Service", "X-Operation"]
+        routeDefinitions[0].filters*.args*.values()*.first() == ["X-Global", "X-Service", "X-Operation"]
+        routeDefinitions[0].metadata == [defaults: [global: "global", service: "service"], overridden: "operation"]
+        routeDefinitions[0].order == 3
+        routeDefinitions[1].predicates[2..3]*.args*.values()*.first() == ["X-Global", "X-Service"]
+        routeDefinitions[1].filters*.args*.values()*.first() == ["X-Global", "X-Service"]
+        routeDefinitions[1].metadata == [defaults: [global: "global", service: "service"], overridden: "service"]
+        routeDefinitions[1].order == 2
+
+        and: 'the merged default metadata is shared between the routes of the service'
+        routeDefinitions[0].metadata.defaults.is(routeDefinitions[1].metadata.defaults)
+    }
+
+    def "customizers may modify the arguments of filters and predicates shared between operations"() {
+        given:
+        DefinitionInterner interner = new DefinitionInterner()
+        FilterDefinition sharedFilter = interner.intern(new FilterDefinition("AddResponseHeader=X-Shared, shared"))
+        PredicateDefinition sharedPredicate = interner.intern(new PredicateDefinition("Header=X-Shared, .*"))
+        operations.put(userService, ["/users", "/users/{userId}"].collect { path ->
+            OpenApiOperation.builder()
+                    .baseUri(userService.getUri())
+                    .httpMethod(HttpMethod.GET)
+                    .path(path)
+                    .filters([sharedFilter])
+                    .predicates([sharedPredicate])
+                    .build()
+        })
+        OpenApiRouteDefinitionCustomizer modifyingCustomizer = { routeDefinition, service, globalExtensions, operationExtensions ->
+            routeDefinition.filters[0].args.put("_genkey_1", routeDefinition.predicates[1].args.values().first())
+            routeDefinition.predicates[2].args.clear()
+        } as OpenApiRouteDefinitionCustomizer
+        OpenApiRouteDefinitionLocator locatorWithModifyingCustomizer =
+                new OpenApiRouteDefinitionLocator(repository, [modifyingCustomizer], properties, Optional.empty(), Optional.empty())
+
+        when:
+        List<RouteDefinition> routeDefinitions = locatorWithModifyingCustomizer.getRouteDefinitions().collectList().block()
+
+        then: 'each route got its own copies'
+        routeDefinitions*.filters*.first()*.args*.get("_genkey_1") == ["/users", "/users/{userId}"]
+        routeDefinitions*.predicates*.get(2)*.args == [[:], [:]]
+
+        and: 'the definitions of the operations are unchanged'
+        sharedFilter.args.values() as List == ["X-Shared", "shared"]
+        sharedPredicate.args.values() as List == ["X-Shared", ".*"]
+    }
+
+    def "customizers may modify the OpenAPI extensions shared between operations"() {
+        given:
+        DefinitionInterner interner = new DefinitionInterner()
+        Map<String, Object> globalExtensions = interner.internExtensions([("x-global"): [key: "global"]] as Map<String, Object>)
+        Map<String, Object> operationExtensions = interner.internExtensions([("x-operation"): "operation"] as Map<String, Object>)
+        operations.put(userService, ["/users", "/users/{userId}"].collect { path ->
+            OpenApiOperation.builder()
+                    .baseUri(userService.getUri())
+                    .httpMethod(HttpMethod.GET)
+                    .path(path)
+                    .openApiExtension(globalExtensions)
+                    .openApiOperationExtension(operationExtensions)
+                    .build()
+        })
+        List<Object> seenGlobalExtensionValues = []
+        OpenApiRouteDefinitionCustomizer modifyingCustomizer = { routeDefinition, service, globalExtensions1, operationExtensions1 ->
+            seenGlobalExtensionValues << globalExtensions1.get("x-global").get("key")
+            globalExtensions1.get("x-global").put("key", "modified")
+            operationExtensions1.remove("x-operation")
+        } as OpenApiRouteDefinitionCustomizer
+        OpenApiRouteDefinitionLocator locatorWithModifyingCustomizer =
+                new OpenApiRouteDefinitionLocator(repository, [modifyingCustomizer], properties, Optional.empty(), Optional.empty())
+
+        when:
+        locatorWithModifyingCustomizer.getRouteDefinitions().collectList().block()
+
+        then: 'the modifications for one route are not visible to the customizers of the other route'
+        seenGlobalExtensionValues == ["global", "global"]
+
+        and: 'the extensions of the operations are unchanged'
+        globalExtensions == [("x-global"): [key: "global"]]
+        operationExtensions == [("x-operation"): "operation"]
+    }
+
+    def "the combined settings are only dropped if properties of the locator changed"() {
+        given:
+        properties.defaultRouteSettings.order = Optional.of(1)
+        operations.put(userService, [operation(userService, "/users")])
+        locator.getRouteDefinitions().collectList().block()
+        properties.defaultRouteSettings.order = Optional.of(2)
+
+        when: 'other properties changed'
+        propertiesChanged("spring.cloud.gateway.server.webflux.routes[0].id")
+        List<RouteDefinition> routeDefinitions = locator.getRouteDefinitions().collectList().block()
+
+        then: 'the cached route definitions are used'
+        routeDefinitions[0].order == 1
+        customizerInvocations == 1
+
+        when: 'properties of the locator changed'
+        propertiesChanged("openapi-route-definition-locator.default-route-settings.order")
+        routeDefinitions = locator.getRouteDefinitions().collectList().block()
+
+        then:
+        routeDefinitions[0].order == 2
+        customizerInvocations == 2
+    }
+
+    private void propertiesChanged(String... keys) {
+        locator.onApplicationEvent(new EnvironmentChangeEvent(keys as Set<String>))
+    }
+
+    private static String routeIdOf(List<RouteDefinition> routeDefinitions, String path) {
+        return routeDefinitions.find { it.predicates.any { it.args.values().contains(path) } }.id
+    }
+
+    private static OpenApiRouteDefinitionLocatorProperties.Service service(String id) {
+        OpenApiRouteDefinitionLocatorProperties.Service service = new OpenApiRouteDefinitionLocatorProperties.Service()
+        service.setId(id)
+        service.setUri(URI.create("http://${id}:8080"))
+        return service
+    }
+
+    private static OpenApiOperation operation(OpenApiRouteDefinitionLocatorProperties.Service service, String path) {
+        return operation(service, HttpMethod.GET, path)
+    }
+
+    private static OpenApiOperation operation(
+            OpenApiRouteDefinitionLocatorProperties.Service service,
+            HttpMethod httpMethod,
+            String path,
+            Optional<Integer> order = Optional.empty()
+    ) {
+        return OpenApiOperation.builder()
+                .baseUri(service.getUri())
+                .httpMethod(httpMethod)
+                .path(path)
+                .order(order)
+                .build()
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2022 Jan Bretschneider <mail@jan-bretschneider.de>
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You can find the License in the `LICENSE` file at the top level of
+ * this repository or may obtain a copy at
+ *
+ *   https://raw.githubusercontent.com/jbretsch/openapi-route-definition-locator/master/LICENSE
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package net.bretti.openapi.route.definition.locator.core.impl
+
+import org.springframework.cloud.gateway.filter.GatewayFilterChain
+import org.springframework.cloud.gateway.handler.predicate.PredicateDefinition
+import org.springframework.cloud.gateway.route.Route
+import org.springframework.cloud.gateway.route.RouteDefinition
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest
+import org.springframework.mock.web.server.MockServerWebExchange
+import reactor.core.publisher.Mono
+import spock.lang.Specification
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR
+
+class OpenApiRouteHitCounterTest extends Specification {
+
+    OpenApiRouteHitCounter counter = new OpenApiRouteHitCounter()
+    GatewayFilterChain chain = { exchange -> Mono.empty() } as GatewayFilterChain
+
+    def "route definitions keep their order as long as no route was hit"() {
+        given:
+        List<RouteDefinition> routeDefinitions = [
+                route("a", "GET", "/a"),
+                route("b", "GET", "/b"),
+                route("c", "GET", "/c"),
+        ]
+
+        expect:
+        counter.orderByHitCount(routeDefinitions)*.id == ["a", "b", "c"]
+    }
+
+    def "frequently hit route definitions are moved to the front"() {
+        given:
+        List<RouteDefinition> routeDefinitions = [
+                route("a", "GET", "/a"),
+                route("b", "GET", "/b"),
+                route("c", "GET", "/c"),
+        ]
+        counter.orderByHitCount(routeDefinitions)
+
+        when:
+        hit("c", 3)
+        hit("b", 1)
+
+        then:
+        counter.getHitCount("c") == 3
+        counter.orderByHitCount(routeDefinitions)*.id == ["c", "b", "a"]
+    }
+
+    def "route definitions that may match the same requests keep their relative order"() {
+        given:
+        List<RouteDefinition> routeDefinitions = [
+                route("me", "GET", "/users/me"),
+                route("user", "GET", "/users/{userId}"),
+                route("delete-user", "DELETE", "/users/{userId}"),
+                route("docs", "GET", "/docs/**"),
+                route("orders", "GET", "/orders"),
+        ]
+        counter.orderByHitCount(routeDefinitions)
+
+        when:
+        hit("user", 10)
+        hit("delete-user", 5)
+        hit("docs", 3)
+        hit("orders", 1)
+
+        then: "'user' stays behind the overlapping 'me', the other routes do not overlap with anything"
+        counter.orderByHitCount(routeDefinitions)*.id == ["delete-user", "docs", "orders", "me", "user"]
+    }
+
+    def "route definitions without path predicate keep their position relative to all others"() {
+        given:
+        List<RouteDefinition> routeDefinitions = [
+                route("a", "GET", "/a"),
+                route("any-path", "GET", null),
+                route("b", "GET", "/b"),
+        ]
+        counter.orderByHitCount(routeDefinitions)
+
+        when:
+        hit("b", 2)
+
+        then:
+        counter.orderByHitCount(routeDefinitions)*.id == ["a", "any-path", "b"]
+    }
+
+    def "routes not ordered by the counter are not counted"() {
+        given:
+        counter.orderByHitCount([route("a", "GET", "/a")])
+
+        when:
+        hit("unknown", 1)
+
+        then:
+        counter.getHitCount("unknown") == 0
+    }
+
+    private void hit(String routeId, int times) {
+        Route route = Route.builder().id(routeId).uri("http://localhost").predicate({ true }).build()
+        times.times {
+            MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/"))
+            exchange.getAttributes().put(GATEWAY_ROUTE_ATTR, route)
+            counter.filter(exchange, chain).block()
+        }
+    }
+
+    private static RouteDefinition route(String id, String method, String path) {
+        RouteDefinition routeDefinition = new RouteDefinition()
+        routeDefinition.setId(id)
+        List<PredicateDefinition> predicates = [new PredicateDefinition("Method=${method}")]
+        if (path != null) {
+            predicates.add(new PredicateDefinition("Path=${path}"))
+        }
+        routeDefinition.setPredicates(predicates)
+        return routeDefinition
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2022 Jan Bretschneider <mail@jan-bretschneider.de>
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You can find the License in the `LICENSE` file at the top level of
+ * this repository or may obtain a copy at
+ *
+ *   https://raw.githubusercontent.com/jbretsch/openapi-route-definition-locator/master/LICENSE
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package net.bretti.openapi.route.definition.locator.core.impl
+
+import org.springframework.cloud.gateway.handler.predicate.PredicateDefinition
+import org.springframework.cloud.gateway.route.RouteDefinition
+import org.springframework.http.server.PathContainer
+import spock.lang.Specification
+
+class OpenApiRoutePathIndexTest extends Specification {
+
+    OpenApiRoutePathIndex index = new OpenApiRoutePathIndex()
+
+    def setup() {
+        index.update([
+                route("users", "Path=/users"),
+                route("user", "Path=/users/{userId}"),
+                route("user-orders", "Path=/users/{userId}/orders"),
+                route("me", "Path=/users/me"),
+                route("docs", "Path=/docs/**"),
+                route("files", "Path=/files/{*path}"),
+                route("two-paths", "Path=/a,/b/c"),
+                route("no-path", "Method=GET"),
+        ])
+    }
+
+    def "finds the indexed routes whose path pattern may match '#path'"() {
+        when:
+        OpenApiRoutePathIndex.Candidates candidates = index.findCandidates(PathContainer.parsePath(path))
+
+        then:
+        candidates.matchingRouteIds == expectedRouteIds as Set
+
+        where:
+        path                 | expectedRouteIds
+        "/users"             | ["users"]
+        "/users/"            | ["users"]
+        "/users/42"          | ["user"]
+        "/users/me"          | ["user", "me"]
+        "/users/42/orders"   | ["user-orders"]
+        "/users/42/invoices" | []
+        "/docs"              | ["docs"]
+        "/docs/a/b"          | ["docs"]
+        "/files/x.txt"       | ["files"]
+        "/a"                 | ["two-paths"]
+        "/b/c"               | ["two-paths"]
+        "/"                  | []
+    }
+
+    def "routes that are not indexed are always candidates"() {
+        when:
+        OpenApiRoutePathIndex.Candidates candidates = index.findCandidates(PathContainer.parsePath("/users"))
+
+        then:
+        candidates.isCandidate("users")
+        !candidates.isCandidate("user")
+        candidates.isCandidate("no-path")
+        candidates.isCandidate("route-of-another-locator")
+    }
+
+    def "an update replaces the indexed routes"() {
+        when:
+        index.update([route("orders", "Path=/orders")])
+        OpenApiRoutePathIndex.Candidates candidates = index.findCandidates(PathContainer.parsePath("/users"))
+
+        then:
+        candidates.matchingRouteIds.isEmpty()
+        candidates.isCandidate("users")
+        !candidates.isCandidate("orders")
+    }
+
+    private static RouteDefinition route(String id, String predicate) {
+        RouteDefinition routeDefinition = new RouteDefinition()
+        routeDefinition.setId(id)
+        routeDefinition.setPredicates([new PredicateDefinition("Method=GET"), new PredicateDefinition(predicate)])
+        return routeDefinition
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2022 Jan Bretschneider <mail@jan-bretschneider.de>
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You can find the License in the `LICENSE` file at the top level of
+ * this repository or may obtain a copy at
+ *
+ *   https://raw.githubusercontent.com/jbretsch/openapi-route-definition-locator/master/LICENSE
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package net.bretti.openapi.route.definition.locator.core.impl
+
+import spock.lang.Specification
+
+import java.nio.charset.StandardCharsets
+
+class RetrievedOpenApiDefinitionTest extends Specification {
+    def "of computes the SHA-256 digest of the raw content"() {
+        when:
+        RetrievedOpenApiDefinition definition = RetrievedOpenApiDefinition.of("abc".getBytes(StandardCharsets.UTF_8))
+
+        then:
+        definition.content == Optional.of("abc")
+        definition.contentDigest == Optional.of("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad")
+    }
+
+    def "byte-identical contents have equal digests and different contents have different digests"() {
+        expect:
+        RetrievedOpenApiDefinition.of("openapi: 3.0.1\n".bytes).contentDigest == RetrievedOpenApiDefinition.of("openapi: 3.0.1\n".bytes).contentDigest
+        RetrievedOpenApiDefinition.of("openapi: 3.0.1\n".bytes).contentDigest != RetrievedOpenApiDefinition.of("openapi: 3.0.2\n".bytes).contentDigest
+    }
+
+    def "notModified has neither content nor digest"() {
+        given:
+        HttpCacheValidators validators = new HttpCacheValidators(Optional.of('"v1"'), Optional.empty())
+
+        when:
+        RetrievedOpenApiDefinition definition = RetrievedOpenApiDefinition.notModified(validators)
+
+        then:
+        definition.content == Optional.empty()
+        definition.contentDigest == Optional.empty()
+        definition.cacheValidators == validators
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2022 Jan Bretschneider <mail@jan-bretschneider.de>
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You can find the License in the `LICENSE` file at the top level of
+ * this repository or may obtain a copy at
+ *
+ *   https://raw.githubusercontent.com/jbretsch/openapi-route-definition-locator/master/LICENSE
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package net.bretti.openapi.route.definition.locator.core.impl
+
+import groovy.json.JsonOutput
+import net.bretti.openapi.route.definition.locator.core.config.OpenApiRouteDefinitionLocatorProperties
+import org.springframework.http.HttpMethod
+import org.yaml.snakeyaml.Yaml
+import spock.lang.Specification
+
+class StreamingOpenApiDefinitionParserTest extends Specification {
+
+    static final String OPENAPI_YAML = '''
+openapi: 3.0.1
+info:
+  title: Sample
+  version: 1.0.0
+x-gateway-route-settings:
+  filters:
+    - AddResponseHeader=X-Global, global
+  metadata:
+    key: value
+paths:
+  /users:
+    parameters:
+      - name: q
+        in: query
+        schema:
+          type: string
+    post:
+      responses:
+        "201":
+          description: Created
+    get:
+      x-gateway-route-settings:
+        order: 5
+        predicates:
+          - name: Header
+            args:
+              header: Authorization
+      x-other: [1, 2]
+      responses:
+        "200":
+          description: OK
+          content:
+            application/json:
+              schema:
+                $ref: '#/components/schemas/Users'
+  /users/{userId}:
+    get:
+      responses:
+        "200":
+          description: OK
+components:
+  schemas:
+    Users:
+      type: array
+      items:
+        type: object
+'''
+
+    OpenApiRouteDefinitionLocatorProperties.Service service = new OpenApiRouteDefinitionLocatorProperties.Service(id: "user-service")
+
+    def "extracts paths, HTTP methods and extensions like the swagger-parser engine"() {
+        when:
+        ParsedOpenApiDefinition streamed = new StreamingOpenApiDefinitionParser().parse(content, service)
+        ParsedOpenApiDefinition parsed = new SwaggerOpenApiDefinitionParser(new OpenApiRouteDefinitionLocatorProperties()).parse(content, service)
+
+        then:
+        streamed == parsed
+        streamed.operations.collect { "${it.httpMethod.name()} ${it.path}".toString() } == ["GET /users", "POST /users", "GET /users/{userId}"]
+        streamed.extensions == ['x-gateway-route-settings': [filters: ['AddResponseHeader=X-Global, global'], metadata: [key: 'value']]]
+        streamed.operations[0].extensions == [
+                'x-gateway-route-settings': [order: 5, predicates: [[name: 'Header', args: [header: 'Authorization']]]],
+                'x-other'                 : [1, 2],
+        ]
+        streamed.operations[0].httpMethod == HttpMethod.GET
+
+        where:
+        content << [OPENAPI_YAML, JsonOutput.toJson(new Yaml().load(OPENAPI_YAML))]
+    }
+
+    def "rejects documents that are not OpenAPI 3.x definitions"() {
+        when:
+        new StreamingOpenApiDefinitionParser().parse(content, service)
+
+        then:
+        thrown(IllegalArgumentException)
+
+        where:
+        content << ['swagger: "2.0"\npaths: {}\n', '- a\n- b\n', 'paths: {}\n']
+    }
+}
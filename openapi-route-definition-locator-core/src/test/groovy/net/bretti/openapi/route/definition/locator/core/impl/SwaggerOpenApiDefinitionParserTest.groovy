@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2022 Jan Bretschneider <mail@jan-bretschneider.de>
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You can find the License in the `LICENSE` file at the top level of
+ * this repository or may obtain a copy at
+ *
+ *   https://raw.githubusercontent.com/jbretsch/openapi-route-definition-locator/master/LICENSE
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+
+package net.bretti.openapi.route.definition.locator.core.impl
+
+import io.swagger.v3.oas.models.OpenAPI
+import io.swagger.v3.oas.models.Paths
+import io.swagger.v3.parser.core.extensions.SwaggerParserExtension
+import io.swagger.v3.parser.core.models.ParseOptions
+import io.swagger.v3.parser.core.models.SwaggerParseResult
+import net.bretti.openapi.route.definition.locator.core.config.OpenApiRouteDefinitionLocatorProperties
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+class SwaggerOpenApiDefinitionParserTest extends Specification {
+
+    @TempDir
+    Path tempDir
+
+    static final String OPENAPI_YAML = '''
+openapi: 3.0.1
+info:
+  title: Sample
+  version: 1.0.0
+paths:
+  /users:
+    get:
+      responses:
+        "200":
+          description: OK
+'''
+
+    OpenApiRouteDefinitionLocatorProperties properties = new OpenApiRouteDefinitionLocatorProperties()
+    List<ParseOptions> receivedParseOptions = []
+    SwaggerParserExtension parserExtension = [
+            readContents: { String content, List auth, ParseOptions options ->
+                receivedParseOptions << options
+                return new SwaggerParseResult(openAPI: new OpenAPI(paths: new Paths()), messages: [])
+            }
+    ] as SwaggerParserExtension
+    SwaggerOpenApiDefinitionParser parser = new SwaggerOpenApiDefinitionParser(properties, [parserExtension])
+
+    OpenApiRouteDefinitionLocatorProperties.Service userService = new OpenApiRouteDefinitionLocatorProperties.Service(id: "user-service")
+    OpenApiRouteDefinitionLocatorProperties.Service orderService = new OpenApiRouteDefinitionLocatorProperties.Service(id: "order-service")
+
+    def "no parse options are passed to swagger-parser if none are configured"() {
+        when:
+        parser.parse(OPENAPI_YAML, userService)
+
+        then:
+        receivedParseOptions == [null]
+    }
+
+    def "the configured parse options are passed to swagger-parser with the service's options taking precedence"() {
+        given:
+        properties.parsing.parseOptions.resolve = true
+        properties.parsing.parseOptions.flatten = true
+        properties.parsing.parseOptions.validateExternalRefs = false
+        orderService.parseOptions.flatten = false
+        orderService.parseOptions.resolveFully = true
+        orderService.parseOptions.validateInternalRefs = false
+
+        when:
+        parser.parse(OPENAPI_YAML, userService)
+        parser.parse(OPENAPI_YAML, orderService)
+
+        then:
+        receivedParseOptions.size() == 2
+        with(receivedParseOptions[0]) {
+            resolve
+            !resolveFully
+            flatten
+            validateInternalRefs
+            !validateExternalRefs
+        }
+        with(receivedParseOptions[1]) {
+            resolve
+            resolveFully
+            !flatten
+            !validateInternalRefs
+            !validateExternalRefs
+        }
+    }
+
+    def "the parse options of a service are created once and reused for all its OpenAPI definitions"() {
+        given:
+        properties.parsing.parseOptions.resolve = true
+
+        when:
+        parser.parse(OPENAPI_YAML, userService)
+        parser.parse(OPENAPI_YAML, userService)
+        parser.parse(OPENAPI_YAML, orderService)
+
+        then:
+        receivedParseOptions.size() == 3
+        receivedParseOptions[0].is(receivedParseOptions[1])
+        !receivedParseOptions[0].is(receivedParseOptions[2])
+    }
+
+    def "the parse options change the result of swagger-parser"() {
+        given: 'an OpenAPI definition whose path item is defined in another document'
+        Path pathItemFile = tempDir.resolve("users-path-item.yaml")
+        Files.writeString(pathItemFile, """
+            get:
+              responses:
+                "200":
+                  description: OK
+            """.stripIndent())
+        String openApiYaml = """
+            openapi: 3.0.1
+            info:
+              title: Sample
+              version: 1.0.0
+            paths:
+              /users:
+                \$ref: '${pathItemFile.toUri()}'
+            """.stripIndent()
+
+        and:
+        properties.parsing.parseOptions.resolve = resolve
+        SwaggerOpenApiDefinitionParser realParser = new SwaggerOpenApiDefinitionParser(properties)
+
+        expect: 'the operations of the path item are only found if references to other documents are resolved'
+        realParser.parse(openApiYaml, userService).operations*.path == expectedPaths
+
+        where:
+        resolve | expectedPaths
+        null    | []
+        false   | []
+        true    | ["/users"]
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2022 Jan Bretschneider <mail@jan-bretschneider.de>
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You can find the License in the `LICENSE` file at the top level of
+ * this repository or may obtain a copy at
+ *
+ *   https://raw.githubusercontent.com/jbretsch/openapi-route-definition-locator/master/LICENSE
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package net.bretti.openapi.route.definition.locator.core.impl
+
+import net.bretti.openapi.route.definition.locator.core.config.OpenApiRouteDefinitionLocatorProperties
+import spock.lang.Specification
+
+import java.time.Duration
+import java.time.Instant
+
+class UpdateScheduleTest extends Specification {
+
+    OpenApiRouteDefinitionLocatorProperties properties = new OpenApiRouteDefinitionLocatorProperties()
+    OpenApiRouteDefinitionLocatorProperties.Service service = new OpenApiRouteDefinitionLocatorProperties.Service(id: "user-service")
+    UpdateSchedule updateSchedule = new UpdateSchedule()
+    Instant now = Instant.parse("2024-01-01T00:00:00Z")
+
+    def setup() {
+        properties.updateScheduler.fixedDelay = Duration.ofMinutes(1)
+    }
+
+    def "services without a recorded retrieval are due right away"() {
+        expect:
+        updateSchedule.isDue(properties, service, now)
+    }
+
+    def "the first retrieval of a service is delayed by up to the jitter"() {
+        given:
+        properties.updateScheduler.jitter = Duration.ofSeconds(30)
+        List<OpenApiRouteDefinitionLocatorProperties.Service> services = (1..20).collect {
+            new OpenApiRouteDefinitionLocatorProperties.Service(id: "service-${it}")
+        }
+
+        when:
+        List<Boolean> dueRightAway = services.collect { updateSchedule.isDue(properties, it, now) }
+
+        then:
+        dueRightAway.contains(false)
+        services.every { updateSchedule.isDue(properties, it, now.plusSeconds(30)) }
+
+        and: 'the first due time stays the same once it was chosen'
+        services.collect { updateSchedule.isDue(properties, it, now) } == dueRightAway
+    }
+
+    def "services are due again after the fixed delay"() {
+        when:
+        updateSchedule.recordSuccess(properties, service, false, now)
+
+        then:
+        !updateSchedule.isDue(properties, service, now.plusSeconds(59))
+        updateSchedule.isDue(properties, service, now.plusSeconds(60))
+    }
+
+    def "the fixed delay and jitter of a service take precedence"() {
+        given:
+        service.updateScheduler.fixedDelay = Duration.ofMinutes(2)
+        service.updateScheduler.jitter = Duration.ofSeconds(30)
+        properties.updateScheduler.jitter = Duration.ofMinutes(10)
+
+        when:
+        updateSchedule.recordSuccess(properties, service, false, now)
+
+        then:
+        !updateSchedule.isDue(properties, service, now.plusSeconds(119))
+        updateSchedule.isDue(properties, service, now.plusSeconds(150))
+    }
+
+    def "the adaptive delay grows while the OpenAPI definition is unchanged and is reset after a change"() {
+        given:
+        properties.updateScheduler.adaptiveDelay.enabled = true
+        properties.updateScheduler.adaptiveDelay.maxDelay = Duration.ofMinutes(5)
+
+        when:
+        List<Duration> delays = (1..5).collect {
+            updateSchedule.recordSuccess(properties, service, false, now)
+            updateSchedule.getDelay(service)
+        }
+
+        then:
+        delays == [1, 2, 4, 5, 5].collect { Duration.ofMinutes(it) }
+
+        when:
+        updateSchedule.recordSuccess(properties, service, true, now)
+
+        then:
+        updateSchedule.getDelay(service) == Duration.ofMinutes(1)
+    }
+
+    def "failed retrievals are retried after the fixed delay"() {
+        given:
+        properties.updateScheduler.adaptiveDelay.enabled = true
+        3.times { updateSchedule.recordSuccess(properties, service, false, now) }
+
+        when:
+        updateSchedule.recordFailure(properties, service, now)
+
+        then:
+        updateSchedule.getDelay(service) == Duration.ofMinutes(1)
+        updateSchedule.isDue(properties, service, now.plusSeconds(60))
+    }
+
+    def "failed retrievals back off exponentially once the circuit is open"() {
+        given:
+        properties.updateScheduler.backoff.enabled = true
+        properties.updateScheduler.backoff.failureThreshold = 2
+        properties.updateScheduler.backoff.maxDelay = Duration.ofMinutes(5)
+
+        when:
+        List<Duration> delays = []
+        List<UpdateSchedule.CircuitState> circuitStates = []
+        5.times {
+            updateSchedule.recordFailure(properties, service, now)
+            delays << updateSchedule.getDelay(service)
+            circuitStates << updateSchedule.getCircuitState(properties, service, now)
+        }
+
+        then:
+        delays == [1, 2, 4, 5, 5].collect { Duration.ofMinutes(it) }
+        circuitStates == [UpdateSchedule.CircuitState.CLOSED] + [UpdateSchedule.CircuitState.OPEN] * 4
+
+        and: 'the circuit is half-open once the backoff delay has passed'
+        updateSchedule.getCircuitState(properties, service, now.plus(Duration.ofMinutes(5))) == UpdateSchedule.CircuitState.HALF_OPEN
+
+        when:
+        updateSchedule.recordSuccess(properties, service, false, now)
+
+        then:
+        updateSchedule.getCircuitState(properties, service, now) == UpdateSchedule.CircuitState.CLOSED
+        updateSchedule.getDelay(service) == Duration.ofMinutes(1)
+    }
+
+    def "the circuit stays closed without backoff"() {
+        when:
+        5.times { updateSchedule.recordFailure(properties, service, now) }
+
+        then:
+        updateSchedule.getCircuitState(properties, service, now) == UpdateSchedule.CircuitState.CLOSED
+        updateSchedule.getDelay(service) == Duration.ofMinutes(1)
+    }
+
+}
@@ -59,24 +59,29 @@ class MapMergeTest extends Specification {
         [a: 'b'] | [a: null] | [b: 'c'] | [b: 'c']
     }
 
-    // It is important that deepMerge() returns a deep copy of the input maps because metadata maps can be arbitrarily
-    // modified via a `OpenApiRouteDefinitionCustomizer` implementation and there should be no interference whatsoever
-    // between the metadata maps of different API operations.
-    def "deepMerge(original, patch) returns a deep copy"() {
+    // Metadata maps can be arbitrarily modified via a `OpenApiRouteDefinitionCustomizer` implementation and there
+    // should be no interference whatsoever between the metadata maps of different API operations. Therefore, the
+    // results of deepMerge() are immutable and customizers get mutable copies of them.
+    def "deepMerge(original, patch) returns an immutable result"() {
         when: 'we merge an original map and a patch map'
         Map<String, Object> originalPatched = MapMerge.deepMerge(Optional.ofNullable(original), Optional.ofNullable(patch)).get()
 
         then: 'we get some expected result'
         originalPatched == originalPatchedExpected
 
-        when: 'we modify that result, e.g. via a `OpenApiRouteDefinitionCustomizer` implementation'
+        when: 'we try to modify that result'
         originalPatchModifier.call(originalPatched)
 
-        and: 'merge the original map and patch map again'
-        Map<String, Object> originalPatched2 = MapMerge.deepMerge(Optional.ofNullable(original), Optional.ofNullable(patch)).get()
+        then: 'the modification is rejected'
+        thrown(UnsupportedOperationException)
 
-        then: 'the patch result should be the same as the result of the first merge operation'
-        originalPatched2 == originalPatchedExpected
+        when: 'we modify a mutable copy of that result, e.g. via a `OpenApiRouteDefinitionCustomizer` implementation'
+        Map<String, Object> mutableCopy = MapMerge.mutableCopy(originalPatched)
+        originalPatchModifier.call(mutableCopy)
+
+        then: 'the copy is modified, but the result stays the same'
+        mutableCopy != originalPatchedExpected
+        originalPatched == originalPatchedExpected
 
         where:
         original                       | patch                          | originalPatchedExpected                              | originalPatchModifier
@@ -89,21 +94,18 @@ class MapMergeTest extends Specification {
         [key1: [[key101: 'value101']]] | [key1: [[key111: 'value111']]] | [key1: [[key101: 'value101'], [key111: 'value111']]] | { it.key1[1].key112 = 'value112' }
     }
 
-    def "deepMerge(original) returns a deep copy"() {
+    def "deepMerge(original) returns an immutable copy"() {
         when: 'we merge an original map with an empty list of patch maps'
         Map<String, Object> originalPatched = MapMerge.deepMerge(Optional.ofNullable(original)).get()
 
         then: 'we get some expected result'
         originalPatched == originalPatchedExpected
 
-        when: 'we modify that result, e.g. via a `OpenApiRouteDefinitionCustomizer` implementation'
+        when: 'we try to modify that result'
         originalPatchModifier.call(originalPatched)
 
-        and: 'merge the original map with an empty list of patch maps again'
-        Map<String, Object> originalPatched2 = MapMerge.deepMerge(Optional.ofNullable(original)).get()
-
-        then: 'the patch result should be the same as the result of the first merge operation'
-        originalPatched2 == originalPatchedExpected
+        then: 'the modification is rejected'
+        thrown(UnsupportedOperationException)
 
         where:
         original                   | originalPatchedExpected    | originalPatchModifier
@@ -113,4 +115,37 @@ class MapMergeTest extends Specification {
         [key1: [key11: 'value11']] | [key1: [key11: 'value11']] | { it.key1.key12 = 'value12' }
         [key1: ['value11']]        | [key1: ['value11']]        | { it.key1.add('value12') }
     }
+
+    def "deepMerge does not share modifiable parts with its input maps"() {
+        given:
+        Map<String, Object> original = [key1: [key11: 'value11'], key2: ['value21']]
+        Map<String, Object> patch = [key3: [key31: 'value31']]
+        Map<String, Object> originalPatched = MapMerge.deepMerge(Optional.of(original), Optional.of(patch)).get()
+
+        when: 'we modify the input maps'
+        original.key1.key12 = 'value12'
+        original.key2.add('value22')
+        patch.key3.key32 = 'value32'
+
+        then: 'the result stays the same'
+        originalPatched == [key1: [key11: 'value11'], key2: ['value21'], key3: [key31: 'value31']]
+    }
+
+    def "deepMerge shares the unchanged parts of previous results"() {
+        given:
+        Map<String, Object> defaults = MapMerge.deepMerge(Optional.of([key1: [key11: 'value11'], key2: [key21: 'value21']])).get()
+
+        when:
+        Map<String, Object> originalPatched = MapMerge.deepMerge(Optional.of(defaults), Optional.of([key2: [key22: 'value22']])).get()
+
+        then: 'only the changed path is copied'
+        originalPatched == [key1: [key11: 'value11'], key2: [key21: 'value21', key22: 'value22']]
+        originalPatched.key1.is(defaults.key1)
+        !originalPatched.key2.is(defaults.key2)
+
+        and: 'patches without changes return the previous result itself'
+        MapMerge.deepMerge(Optional.of(defaults), Optional.of([key1: [key11: 'value11']])).get().is(defaults)
+        MapMerge.deepMerge(Optional.of(defaults), Optional.empty()).get().is(defaults)
+        MapMerge.deepMerge(Optional.of(defaults)).get().is(defaults)
+    }
 }
@@ -7,6 +7,7 @@ dependencies {
     implementation("org.springframework.cloud:spring-cloud-gateway-server")
     annotationProcessor("org.springframework.boot:spring-boot-autoconfigure-processor")
     compileOnly("io.micrometer:micrometer-core")
+    compileOnly("org.springframework.boot:spring-boot-actuator-autoconfigure")
 
     testImplementation("org.springframework.cloud:spring-cloud-starter-gateway-server-webflux")
     testImplementation("org.springframework.boot:spring-boot-actuator-autoconfigure")
@@ -16,6 +17,31 @@ dependencies {
     testImplementation("org.apache.commons:commons-lang3")
 }
 
+val fleetSimulationTag = "fleet-simulation"
+
+tasks.test {
+    useJUnitPlatform {
+        excludeTags(fleetSimulationTag)
+    }
+}
+
+// Simulates update cycles with a fleet of stub services, e.g.
+// `./gradlew :openapi-route-definition-locator-spring-cloud-starter:fleetSimulation -Dfleet.services=500`.
+val fleetSimulation by tasks.registering(Test::class) {
+    description = "Runs the fleet simulation and writes its report to build/reports/fleet-simulation."
+    group = LifecycleBasePlugin.VERIFICATION_GROUP
+    testClassesDirs = sourceSets.test.get().output.classesDirs
+    classpath = sourceSets.test.get().runtimeClasspath
+    useJUnitPlatform {
+        includeTags(fleetSimulationTag)
+    }
+    systemProperty("fleet.report", layout.buildDirectory.file("reports/fleet-simulation/report.json").get().asFile.path)
+    System.getProperties()
+        .filterKeys { it.toString().startsWith("fleet.") || it.toString().startsWith("openapi-route-definition-locator.") }
+        .forEach { (key, value) -> systemProperty(key.toString(), value) }
+    outputs.upToDateWhen { false }
+}
+
 publishing {
     publications {
         create<MavenPublication>("mavenJava") {
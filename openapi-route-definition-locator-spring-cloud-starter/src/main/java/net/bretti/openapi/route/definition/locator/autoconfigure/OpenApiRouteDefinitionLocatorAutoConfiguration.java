@@ -20,10 +20,19 @@ package net.bretti.openapi.route.definition.locator.autoconfigure;
 
 import net.bretti.openapi.route.definition.locator.core.config.OpenApiRouteDefinitionLocatorProperties;
 import net.bretti.openapi.route.definition.locator.core.customizer.OpenApiRouteDefinitionCustomizer;
+import net.bretti.openapi.route.definition.locator.core.impl.OpenApiDefinitionInitialLoader;
+import net.bretti.openapi.route.definition.locator.core.impl.OpenApiDefinitionParser;
 import net.bretti.openapi.route.definition.locator.core.impl.OpenApiDefinitionRepository;
+import net.bretti.openapi.route.definition.locator.core.impl.OpenApiDefinitionRetriever;
 import net.bretti.openapi.route.definition.locator.core.impl.OpenApiDefinitionUpdateScheduler;
+import net.bretti.openapi.route.definition.locator.core.impl.OpenApiOperationsSnapshotStore;
 import net.bretti.openapi.route.definition.locator.core.impl.OpenApiRouteDefinitionLocator;
 import net.bretti.openapi.route.definition.locator.core.impl.OpenApiRouteDefinitionLocatorTimedMetrics;
+import net.bretti.openapi.route.definition.locator.core.impl.OpenApiRouteHitCounter;
+import net.bretti.openapi.route.definition.locator.core.impl.OpenApiRoutePathIndex;
+import net.bretti.openapi.route.definition.locator.core.impl.StreamingOpenApiDefinitionParser;
+import net.bretti.openapi.route.definition.locator.core.impl.SwaggerOpenApiDefinitionParser;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -33,6 +42,9 @@ import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 
 import java.util.List;
 import java.util.Optional;
@@ -49,9 +61,33 @@ public class OpenApiRouteDefinitionLocatorAutoConfiguration {
             OpenApiRouteDefinitionLocatorProperties config,
             ApplicationEventPublisher applicationEventPublisher,
             Optional<OpenApiRouteDefinitionLocatorTimedMetrics> metrics,
-            ResourceLoader resourceLoader) {
+            OpenApiDefinitionRetriever openApiDefinitionRetriever,
+            OpenApiDefinitionParser openApiDefinitionParser) {
+        Scheduler updateScheduler = Schedulers.newBoundedElastic(config.getUpdateScheduler().getParallelism(),
+                Integer.MAX_VALUE, "openapi-definition-update");
         return new OpenApiDefinitionRepository(config, new ConcurrentHashMap<>(), new ConcurrentHashMap<>(),
-                applicationEventPublisher, metrics, resourceLoader);
+                applicationEventPublisher, metrics, openApiDefinitionRetriever, openApiDefinitionParser, updateScheduler,
+                Optional.ofNullable(config.getSnapshot().getFile()).map(OpenApiOperationsSnapshotStore::new));
+    }
+
+    @Bean
+    public OpenApiDefinitionParser openApiDefinitionParser(OpenApiRouteDefinitionLocatorProperties config) {
+        if (config.getParsing().getEngine() == OpenApiRouteDefinitionLocatorProperties.ParsingEngine.STREAMING) {
+            return new StreamingOpenApiDefinitionParser();
+        }
+        return new SwaggerOpenApiDefinitionParser(config);
+    }
+
+    @Bean
+    public OpenApiDefinitionRetriever openApiDefinitionRetriever(
+            OpenApiRouteDefinitionLocatorProperties config,
+            ResourceLoader resourceLoader,
+            ObjectProvider<WebClient.Builder> webClientBuilder) {
+        Optional<WebClient.Builder> webClient = Optional.empty();
+        if (config.getRetrieval().getHttpClient() == OpenApiRouteDefinitionLocatorProperties.HttpClient.WEB_CLIENT) {
+            webClient = Optional.of(webClientBuilder.getIfAvailable(WebClient::builder));
+        }
+        return new OpenApiDefinitionRetriever(config, resourceLoader, webClient);
     }
 
     @Bean
@@ -63,16 +99,34 @@ public class OpenApiRouteDefinitionLocatorAutoConfiguration {
     public OpenApiRouteDefinitionLocator openApiRouteDefinitionLocator(
             OpenApiDefinitionRepository openApiDefinitionRepository,
             List<OpenApiRouteDefinitionCustomizer> openApiRouteDefinitionCustomizers,
-            OpenApiRouteDefinitionLocatorProperties openApiRouteDefinitionLocatorProperties
+            OpenApiRouteDefinitionLocatorProperties openApiRouteDefinitionLocatorProperties,
+            Optional<OpenApiRoutePathIndex> openApiRoutePathIndex,
+            Optional<OpenApiRouteHitCounter> openApiRouteHitCounter
     ) {
         return new OpenApiRouteDefinitionLocator(openApiDefinitionRepository, openApiRouteDefinitionCustomizers,
-                openApiRouteDefinitionLocatorProperties);
+                openApiRouteDefinitionLocatorProperties, openApiRoutePathIndex, openApiRouteHitCounter);
+    }
+
+    @Bean
+    @ConditionalOnProperty(value = "openapi-route-definition-locator.order-routes-by-hit-count")
+    public OpenApiRouteHitCounter openApiRouteHitCounter() {
+        return new OpenApiRouteHitCounter();
     }
 
     @Bean
     public OpenApiDefinitionUpdateScheduler openApiDefinitionUpdateScheduler(
-            OpenApiDefinitionRepository openApiDefinitionRepository
+            OpenApiDefinitionRepository openApiDefinitionRepository,
+            OpenApiRouteDefinitionLocatorProperties config
+    ) {
+        return new OpenApiDefinitionUpdateScheduler(openApiDefinitionRepository, config);
+    }
+
+    @Bean
+    @ConditionalOnProperty(value = "openapi-route-definition-locator.initial-load.enabled")
+    public OpenApiDefinitionInitialLoader openApiDefinitionInitialLoader(
+            OpenApiDefinitionRepository openApiDefinitionRepository,
+            OpenApiRouteDefinitionLocatorProperties config
     ) {
-        return new OpenApiDefinitionUpdateScheduler(openApiDefinitionRepository);
+        return new OpenApiDefinitionInitialLoader(openApiDefinitionRepository, config);
     }
 }
@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2022 Jan Bretschneider <mail@jan-bretschneider.de>
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You can find the License in the `LICENSE` file at the top level of
+ * this repository or may obtain a copy at
+ *
+ *   https://raw.githubusercontent.com/jbretsch/openapi-route-definition-locator/master/LICENSE
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package net.bretti.openapi.route.definition.locator.autoconfigure;
+
+import net.bretti.openapi.route.definition.locator.core.config.OpenApiRouteDefinitionLocatorProperties;
+import net.bretti.openapi.route.definition.locator.core.impl.OpenApiDefinitionRepository;
+import net.bretti.openapi.route.definition.locator.core.impl.OpenApiDefinitionsEndpoint;
+import org.springframework.boot.actuate.autoconfigure.endpoint.condition.ConditionalOnAvailableEndpoint;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.context.annotation.Bean;
+
+@AutoConfiguration(after = OpenApiRouteDefinitionLocatorAutoConfiguration.class)
+@ConditionalOnClass(Endpoint.class)
+@ConditionalOnBean({ OpenApiDefinitionRepository.class, OpenApiRouteDefinitionLocatorProperties.class })
+public class OpenApiRouteDefinitionLocatorEndpointAutoConfiguration {
+
+    @Bean
+    @ConditionalOnAvailableEndpoint
+    public OpenApiDefinitionsEndpoint openApiDefinitionsEndpoint(
+            OpenApiDefinitionRepository openApiDefinitionRepository,
+            OpenApiRouteDefinitionLocatorProperties config) {
+        return new OpenApiDefinitionsEndpoint(openApiDefinitionRepository, config);
+    }
+
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2022 Jan Bretschneider <mail@jan-bretschneider.de>
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You can find the License in the `LICENSE` file at the top level of
+ * this repository or may obtain a copy at
+ *
+ *   https://raw.githubusercontent.com/jbretsch/openapi-route-definition-locator/master/LICENSE
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package net.bretti.openapi.route.definition.locator.autoconfigure;
+
+import net.bretti.openapi.route.definition.locator.core.impl.OpenApiIndexedRoutePredicateHandlerMapping;
+import net.bretti.openapi.route.definition.locator.core.impl.OpenApiRoutePathIndex;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.gateway.config.GatewayAutoConfiguration;
+import org.springframework.cloud.gateway.config.GlobalCorsProperties;
+import org.springframework.cloud.gateway.handler.FilteringWebHandler;
+import org.springframework.cloud.gateway.handler.RoutePredicateHandlerMapping;
+import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+/**
+ * Replaces the gateway's {@link RoutePredicateHandlerMapping} with one that uses the {@link OpenApiRoutePathIndex}.
+ * Runs before the {@link GatewayAutoConfiguration} so that the gateway backs off from creating its own handler
+ * mapping. Because the beans of the gateway are not registered yet at that point, it backs off on the same property
+ * as the gateway instead of on those beans.
+ */
+@AutoConfiguration(before = GatewayAutoConfiguration.class)
+@ConditionalOnClass(RoutePredicateHandlerMapping.class)
+@ConditionalOnProperty(
+        name = { "openapi-route-definition-locator.enabled", "spring.cloud.gateway.server.webflux.enabled" },
+        matchIfMissing = true)
+public class OpenApiRouteDefinitionLocatorIndexedRouteLookupAutoConfiguration {
+
+    @Bean
+    @ConditionalOnProperty(value = "openapi-route-definition-locator.indexed-route-lookup")
+    public OpenApiRoutePathIndex openApiRoutePathIndex() {
+        return new OpenApiRoutePathIndex();
+    }
+
+    @Bean
+    @ConditionalOnProperty(value = "openapi-route-definition-locator.indexed-route-lookup")
+    public RoutePredicateHandlerMapping openApiIndexedRoutePredicateHandlerMapping(
+            FilteringWebHandler webHandler,
+            RouteLocator routeLocator,
+            GlobalCorsProperties globalCorsProperties,
+            Environment environment,
+            OpenApiRoutePathIndex openApiRoutePathIndex
+    ) {
+        return new OpenApiIndexedRoutePredicateHandlerMapping(webHandler, routeLocator, globalCorsProperties,
+                environment, openApiRoutePathIndex);
+    }
+
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2022 Jan Bretschneider <mail@jan-bretschneider.de>
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You can find the License in the `LICENSE` file at the top level of
+ * this repository or may obtain a copy at
+ *
+ *   https://raw.githubusercontent.com/jbretsch/openapi-route-definition-locator/master/LICENSE
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package componenttest
+
+import componenttest.setup.basetest.BaseCompTest
+import componenttest.setup.wiremock.OrderServiceMock
+import componenttest.setup.wiremock.UserServiceMock
+import org.springframework.test.context.ActiveProfiles
+
+@ActiveProfiles("batched-publication")
+class BatchedPublicationCompTest extends BaseCompTest {
+
+    def "Changes of several services are published together"() {
+        given:
+        waitForRemovalOfAllRoutes()
+
+        and:
+        UserServiceMock.instance.mockOpenApiDefinition()
+        OrderServiceMock.instance.mockOpenApiDefinition()
+
+        when:
+        waitForRouteAddition {
+            assert getRoutesFromActuatorEndpoint().size() == 6
+        }
+        List routes = getRoutesFromActuatorEndpoint()
+
+        then:
+        extractRoute(routes, "GET", "/users") != null
+        extractRoute(routes, "GET", "/users/{userId}") != null
+        extractRoute(routes, "GET", "/users/{userId}/orders") != null
+        extractRoute(routes, "GET", "/users/{userId}/orders/{orderId}") != null
+        extractRoute(routes, "POST", "/users/{userId}/orders") != null
+        extractRoute(routes, "GET", "/entities-of-service-with-openapi-definition-in-classpath") != null
+    }
+
+    def "Failing publication of one service's changes does not affect routes of another service in the same batch"() {
+        given:
+        waitForRemovalOfAllRoutes()
+
+        and: 'OpenAPI definition of one of two services contains an unknown Spring Cloud Gateway Filter'
+        UserServiceMock.instance.mockOpenApiDefinition()
+        OrderServiceMock.instance.mockOpenApiDefinitionContainingUnknownFilter()
+
+        when: 'having waited for gateway to discover all services'
+        sleep(maxWaitTimeForRouteAddition.toMillis())
+
+        then: 'the service with valid OpenAPI definition has been registered'
+        List routes = getRoutesFromActuatorEndpoint()
+        routes.size() == 3
+
+        extractRoute(routes, "GET", "/users") != null
+        extractRoute(routes, "GET", "/users/{userId}") != null
+        extractRoute(routes, "GET", "/users/{userId}/orders") == null
+        extractRoute(routes, "GET", "/entities-of-service-with-openapi-definition-in-classpath") != null
+
+        when: 'service with previously erroneous OpenAPI definition now has valid OpenAPI definition'
+        OrderServiceMock.instance.resetAll()
+        OrderServiceMock.instance.mockOpenApiDefinition()
+
+        then:
+        waitForRouteAddition {
+            assert getRoutesFromActuatorEndpoint().size() == 6
+        }
+    }
+
+}
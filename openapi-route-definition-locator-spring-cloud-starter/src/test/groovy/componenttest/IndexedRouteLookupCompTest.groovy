@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2022 Jan Bretschneider <mail@jan-bretschneider.de>
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You can find the License in the `LICENSE` file at the top level of
+ * this repository or may obtain a copy at
+ *
+ *   https://raw.githubusercontent.com/jbretsch/openapi-route-definition-locator/master/LICENSE
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package componenttest
+
+import componenttest.setup.basetest.BaseCompTest
+import componenttest.setup.wiremock.OrderServiceMock
+import org.springframework.test.context.ActiveProfiles
+import org.springframework.test.web.reactive.server.FluxExchangeResult
+
+@ActiveProfiles("indexed-route-lookup")
+class IndexedRouteLookupCompTest extends BaseCompTest {
+
+    def "Requests are routed via the indexed route lookup"() {
+        given:
+        waitForRemovalOfAllRoutes()
+
+        and:
+        OrderServiceMock.instance.mockOpenApiDefinition()
+        OrderServiceMock.instance.mockGetOrders()
+        OrderServiceMock.instance.mockGetOrder()
+        OrderServiceMock.instance.mockPostOrder()
+
+        and:
+        waitForRouteAddition {
+            List routes = getRoutesFromActuatorEndpoint()
+            assert extractRoute(routes, "GET", "/users/{userId}/orders") != null
+        }
+
+        when:
+        FluxExchangeResult<String> getOrdersResponse = webTestClient
+                .get().uri("http://localhost:${localServerPort}/users/${USER_ID}/orders")
+                .exchange().returnResult(String)
+
+        then:
+        getOrdersResponse.status.value() == 418
+        getOrdersResponse.getResponseBody().blockFirst() == '[{"id": "order-id-1"}]'
+
+        when:
+        FluxExchangeResult<String> getOrderResponse = webTestClient
+                .get().uri("http://localhost:${localServerPort}/users/${USER_ID}/orders/${ORDER_ID}")
+                .exchange().returnResult(String)
+
+        then:
+        getOrderResponse.status.value() == 418
+        getOrderResponse.getResponseBody().blockFirst() == '{"id": "order-id-1"}'
+
+        when:
+        FluxExchangeResult<String> postOrderResponse = webTestClient
+                .post().uri("http://localhost:${localServerPort}/users/${USER_ID}/orders")
+                .exchange().returnResult(String)
+
+        then:
+        postOrderResponse.status.value() == 201
+
+        when:
+        FluxExchangeResult<String> unknownPathResponse = webTestClient
+                .get().uri("http://localhost:${localServerPort}/users/${USER_ID}/invoices")
+                .exchange().returnResult(String)
+
+        then:
+        unknownPathResponse.status.value() == 404
+    }
+
+}
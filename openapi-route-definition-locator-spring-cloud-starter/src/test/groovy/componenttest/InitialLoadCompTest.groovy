@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2022 Jan Bretschneider <mail@jan-bretschneider.de>
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You can find the License in the `LICENSE` file at the top level of
+ * this repository or may obtain a copy at
+ *
+ *   https://raw.githubusercontent.com/jbretsch/openapi-route-definition-locator/master/LICENSE
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package componenttest
+
+import componenttest.setup.basetest.BaseCompTest
+import componenttest.setup.wiremock.OpenapiDefinitionServedFromDifferentHostServiceMock2
+import componenttest.setup.wiremock.OrderServiceMock
+import componenttest.setup.wiremock.UserServiceMock
+import org.springframework.test.context.ActiveProfiles
+
+@ActiveProfiles("initial-load")
+class InitialLoadCompTest extends BaseCompTest {
+
+    def setupSpec() {
+        // Served while the application context starts, i.e. before the setup() of the first feature resets the mocks.
+        UserServiceMock.instance.mockOpenApiDefinition()
+        OrderServiceMock.instance.mockOpenApiDefinition()
+        OpenapiDefinitionServedFromDifferentHostServiceMock2.instance.mockOpenApiDefinition()
+    }
+
+    def "Routes of all services are registered when the gateway has started"() {
+        when:
+        List routes = getRoutesFromActuatorEndpoint()
+        Map health = getHealthOfOpenApiRouteDefinitionLocator()
+
+        then:
+        routes.size() == 7
+        health.status == "UP"
+        health.details.services == 4
+        health.details.loadedServices == 4
+    }
+
+    def "Health indicator reports whether the operations of enough services are registered"() {
+        given:
+        waitForRemovalOfAllRoutes()
+
+        when:
+        Map health = getHealthOfOpenApiRouteDefinitionLocator()
+
+        then: 'only the operations of the service with an OpenAPI definition in the classpath are registered'
+        health.status == "OUT_OF_SERVICE"
+        health.details.loadedServices == 1
+
+        when:
+        UserServiceMock.instance.mockOpenApiDefinition()
+        OrderServiceMock.instance.mockOpenApiDefinition()
+        OpenapiDefinitionServedFromDifferentHostServiceMock2.instance.mockOpenApiDefinition()
+
+        then:
+        waitForRouteAddition {
+            assert getHealthOfOpenApiRouteDefinitionLocator().status == "UP"
+        }
+    }
+
+    Map getHealthOfOpenApiRouteDefinitionLocator() {
+        String healthJson = webTestClient.get().uri("http://localhost:${localServerPort}/actuator/health/openApiRouteDefinitionLocator")
+                .exchange()
+                .returnResult(String)
+                .getResponseBody()
+                .blockFirst()
+
+        return jsonSlurper.parseText(healthJson) as Map
+    }
+
+}
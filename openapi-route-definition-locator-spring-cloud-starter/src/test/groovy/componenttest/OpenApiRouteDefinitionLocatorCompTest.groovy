@@ -25,6 +25,7 @@ import componenttest.setup.wiremock.OrderServiceMock
 import componenttest.setup.wiremock.UserServiceMock
 import org.springframework.test.web.reactive.server.FluxExchangeResult
 
+import java.nio.charset.StandardCharsets
 import java.time.Duration
 import java.time.Instant
 
@@ -61,7 +62,7 @@ class OpenApiRouteDefinitionLocatorCompTest extends BaseCompTest {
         Map getUsersRoute = extractRoute(routes, "GET", "/users")
         String predicateLambdaTrue = (getUsersRoute =~ /(RouteDefinitionRouteLocator[$][$]Lambda[$]\d+\/.*?) /)[0][1]
         getUsersRoute.predicate == "(((${predicateLambdaTrue} && Methods: [GET]) && Paths: [/users], match trailing slash: true) && Header: Authorization regexp=null)"
-        getUsersRoute.route_id != null
+        getUsersRoute.route_id == UUID.nameUUIDFromBytes("user-service GET /users".getBytes(StandardCharsets.UTF_8)).toString()
         getUsersRoute.filters == [
                 "[[AddResponseHeader name = 'X-Response-FromGlobalConfig', value = 'global-sample-value', override = true], order = 1]",
                 "[[AddResponseHeader name = 'X-Response-DefaultForAllServices', value = 'sample-value-all', override = true], order = 1]",
@@ -410,4 +411,29 @@ class OpenApiRouteDefinitionLocatorCompTest extends BaseCompTest {
         extractRoute(routes, "GET", "/entities-of-service-with-openapi-definition-in-classpath") != null
     }
 
+    def "Route IDs are stable across route refreshes"() {
+        given:
+        waitForRemovalOfAllRoutes()
+
+        and:
+        UserServiceMock.instance.mockOpenApiDefinition()
+
+        when:
+        waitForRouteAddition {
+            assert getRoutesFromActuatorEndpoint().size() == 3
+        }
+        Set routeIdsBefore = getRoutesFromActuatorEndpoint().collect { it.route_id } as Set
+
+        and: 'another service triggers a route refresh'
+        OrderServiceMock.instance.mockOpenApiDefinition()
+        waitForRouteAddition {
+            assert getRoutesFromActuatorEndpoint().size() == 6
+        }
+        List routes = getRoutesFromActuatorEndpoint()
+
+        then:
+        routes.collect { it.route_id }.containsAll(routeIdsBefore)
+        (routes.collect { it.route_id } as Set).size() == 6
+    }
+
 }
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2022 Jan Bretschneider <mail@jan-bretschneider.de>
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You can find the License in the `LICENSE` file at the top level of
+ * this repository or may obtain a copy at
+ *
+ *   https://raw.githubusercontent.com/jbretsch/openapi-route-definition-locator/master/LICENSE
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package componenttest
+
+import componenttest.setup.basetest.BaseCompTest
+import componenttest.setup.wiremock.UserServiceMock
+import org.springframework.test.web.reactive.server.FluxExchangeResult
+
+class RefreshEndpointCompTest extends BaseCompTest {
+
+    def "Operations of a single service can be refreshed via the actuator endpoint"() {
+        given:
+        waitForRemovalOfAllRoutes()
+
+        and:
+        UserServiceMock.instance.mockOpenApiDefinition()
+
+        when:
+        FluxExchangeResult<String> refreshResponse = webTestClient
+                .post().uri("http://localhost:${localServerPort}/actuator/openapidefinitions/user-service")
+                .exchange().returnResult(String)
+
+        then:
+        refreshResponse.status.value() == 200
+        Map refreshResult = jsonSlurper.parseText(refreshResponse.getResponseBody().blockFirst()) as Map
+        refreshResult.serviceId == "user-service"
+        refreshResult.success == true
+        refreshResult.registeredOperations == 2
+
+        and:
+        waitForRouteAddition {
+            List routes = getRoutesFromActuatorEndpoint()
+            assert extractRoute(routes, "GET", "/users") != null
+        }
+    }
+
+    def "Refreshing an unknown service is rejected"() {
+        when:
+        FluxExchangeResult<String> refreshResponse = webTestClient
+                .post().uri("http://localhost:${localServerPort}/actuator/openapidefinitions/unknown-service")
+                .exchange().returnResult(String)
+
+        then:
+        refreshResponse.status.value() == 400
+    }
+
+}
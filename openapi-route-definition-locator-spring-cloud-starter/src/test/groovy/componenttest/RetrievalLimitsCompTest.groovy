@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2022 Jan Bretschneider <mail@jan-bretschneider.de>
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You can find the License in the `LICENSE` file at the top level of
+ * this repository or may obtain a copy at
+ *
+ *   https://raw.githubusercontent.com/jbretsch/openapi-route-definition-locator/master/LICENSE
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package componenttest
+
+import componenttest.setup.basetest.BaseCompTest
+import componenttest.setup.wiremock.OrderServiceMock
+import componenttest.setup.wiremock.UserServiceMock
+import org.springframework.test.context.ActiveProfiles
+
+@ActiveProfiles("retrieval-limits")
+class RetrievalLimitsCompTest extends BaseCompTest {
+
+    def "OpenAPI definitions exceeding the maximum size are rejected"() {
+        given:
+        waitForRemovalOfAllRoutes()
+
+        and:
+        UserServiceMock.instance.mockOpenApiDefinition()
+        OrderServiceMock.instance.mockOpenApiDefinition()
+
+        when:
+        waitForRouteAddition {
+            assert getRoutesFromActuatorEndpoint().size() == 3
+        }
+        List routes = getRoutesFromActuatorEndpoint()
+
+        then:
+        extractRoute(routes, "GET", "/users") != null
+        extractRoute(routes, "GET", "/users/{userId}/orders") == null
+    }
+
+    def "Retrievals of OpenAPI definitions exceeding the read timeout are aborted"() {
+        given:
+        waitForRemovalOfAllRoutes()
+
+        and:
+        UserServiceMock.instance.mockOpenApiDefinition()
+        OrderServiceMock.instance.mockOpenApiDefinitionWithDelay(2000)
+
+        when:
+        waitForRouteAddition {
+            assert getRoutesFromActuatorEndpoint().size() == 3
+        }
+        sleep(maxWaitTimeForRouteAddition.toMillis())
+        List routes = getRoutesFromActuatorEndpoint()
+
+        then:
+        routes.size() == 3
+        extractRoute(routes, "GET", "/users/{userId}/orders") == null
+    }
+
+}
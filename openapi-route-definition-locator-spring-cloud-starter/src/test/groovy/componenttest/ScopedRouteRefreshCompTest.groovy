@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2022 Jan Bretschneider <mail@jan-bretschneider.de>
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You can find the License in the `LICENSE` file at the top level of
+ * this repository or may obtain a copy at
+ *
+ *   https://raw.githubusercontent.com/jbretsch/openapi-route-definition-locator/master/LICENSE
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package componenttest
+
+import componenttest.setup.basetest.BaseCompTest
+import componenttest.setup.wiremock.OrderServiceMock
+import componenttest.setup.wiremock.UserServiceMock
+import org.springframework.test.context.ActiveProfiles
+import org.springframework.test.web.reactive.server.FluxExchangeResult
+
+@ActiveProfiles("scoped-route-refresh")
+class ScopedRouteRefreshCompTest extends BaseCompTest {
+
+    def "Routes of a service are added and removed via scoped route refreshes"() {
+        given:
+        waitForRemovalOfAllRoutes()
+
+        and:
+        UserServiceMock.instance.mockOpenApiDefinition()
+        UserServiceMock.instance.mockGetUsers()
+        OrderServiceMock.instance.mockOpenApiDefinition()
+
+        when:
+        waitForRouteAddition {
+            assert getRoutesFromActuatorEndpoint().size() == 6
+        }
+        List routes = getRoutesFromActuatorEndpoint()
+
+        then: 'routes are tagged with the ID of their service'
+        extractRoute(routes, "GET", "/users").metadata['openapi-route-definition-locator-service-id'] == 'user-service'
+        extractRoute(routes, "GET", "/users/{userId}/orders").metadata['openapi-route-definition-locator-service-id'] == 'order-service'
+
+        when: 'the OpenAPI definition of one service becomes unavailable'
+        OrderServiceMock.instance.resetAll()
+
+        and:
+        waitForRouteRemoval {
+            assert getRoutesFromActuatorEndpoint().size() == 3
+        }
+        routes = getRoutesFromActuatorEndpoint()
+
+        then: 'only the routes of that service are removed'
+        extractRoute(routes, "GET", "/users/{userId}/orders") == null
+        extractRoute(routes, "GET", "/users") != null
+        extractRoute(routes, "GET", "/entities-of-service-with-openapi-definition-in-classpath") != null
+
+        when:
+        FluxExchangeResult<String> getUsersResponse = webTestClient
+                .get().uri("http://localhost:${localServerPort}/users")
+                .header("Authorization", "Bearer some-token")
+                .exchange().returnResult(String)
+
+        then: 'the routes of the other service still work'
+        getUsersResponse.status.value() == 200
+    }
+
+}
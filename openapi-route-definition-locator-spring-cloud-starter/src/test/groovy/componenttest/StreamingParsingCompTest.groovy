@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2022 Jan Bretschneider <mail@jan-bretschneider.de>
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You can find the License in the `LICENSE` file at the top level of
+ * this repository or may obtain a copy at
+ *
+ *   https://raw.githubusercontent.com/jbretsch/openapi-route-definition-locator/master/LICENSE
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package componenttest
+
+import componenttest.setup.basetest.BaseCompTest
+import componenttest.setup.wiremock.OpenapiDefinitionServedFromDifferentHostServiceMock1
+import componenttest.setup.wiremock.OpenapiDefinitionServedFromDifferentHostServiceMock2
+import componenttest.setup.wiremock.OrderServiceMock
+import componenttest.setup.wiremock.UserServiceMock
+import org.springframework.test.context.ActiveProfiles
+
+@ActiveProfiles("streaming-parsing")
+class StreamingParsingCompTest extends BaseCompTest {
+
+    def "API Gateway creates the same routes with the streaming parsing engine"() {
+        given:
+        waitForRemovalOfAllRoutes()
+
+        and:
+        UserServiceMock.instance.mockOpenApiDefinition()
+        OrderServiceMock.instance.mockOpenApiDefinition()
+        OpenapiDefinitionServedFromDifferentHostServiceMock1.instance.mockGetThings()
+        OpenapiDefinitionServedFromDifferentHostServiceMock2.instance.mockOpenApiDefinition()
+
+        when:
+        waitForRouteAddition {
+            assert getRoutesFromActuatorEndpoint().size() == 7
+        }
+
+        and:
+        List routes = getRoutesFromActuatorEndpoint()
+
+        then:
+        Map getUsersRoute = extractRoute(routes, "GET", "/users")
+        getUsersRoute.predicate.contains("Header: Authorization")
+        getUsersRoute.order == 6
+        getUsersRoute.metadata == [
+                defaultForAllServices                    : 'OptionValueAll',
+                defaultForOneService                     : 'OptionValueOne',
+                AddedByXAuthTypeRouteDefinitionCustomizer: 'Application',
+        ]
+
+        and:
+        extractRoute(routes, "GET", "/users/{userId}") != null
+        extractRoute(routes, "GET", "/users/{userId}/orders") != null
+        extractRoute(routes, "GET", "/users/{userId}/orders/{orderId}") != null
+        extractRoute(routes, "POST", "/users/{userId}/orders") != null
+        extractRoute(routes, "GET", "/things") != null
+        extractRoute(routes, "GET", "/entities-of-service-with-openapi-definition-in-classpath") != null
+    }
+
+}
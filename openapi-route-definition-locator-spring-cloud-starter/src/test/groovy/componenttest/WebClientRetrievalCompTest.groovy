@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2022 Jan Bretschneider <mail@jan-bretschneider.de>
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You can find the License in the `LICENSE` file at the top level of
+ * this repository or may obtain a copy at
+ *
+ *   https://raw.githubusercontent.com/jbretsch/openapi-route-definition-locator/master/LICENSE
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package componenttest
+
+import componenttest.setup.basetest.BaseCompTest
+import componenttest.setup.wiremock.OpenapiDefinitionServedFromDifferentHostServiceMock1
+import componenttest.setup.wiremock.OpenapiDefinitionServedFromDifferentHostServiceMock2
+import componenttest.setup.wiremock.OrderServiceMock
+import componenttest.setup.wiremock.UserServiceMock
+import org.springframework.test.context.ActiveProfiles
+import org.springframework.test.web.reactive.server.FluxExchangeResult
+
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo
+
+@ActiveProfiles("web-client-retrieval")
+class WebClientRetrievalCompTest extends BaseCompTest {
+
+    def "API Gateway routes requests according to OpenAPI definitions retrieved via WebClient"() {
+        given:
+        waitForRemovalOfAllRoutes()
+
+        and:
+        UserServiceMock.instance.mockOpenApiDefinition()
+        UserServiceMock.instance.mockGetUsers()
+
+        and:
+        OrderServiceMock.instance.mockOpenApiDefinition()
+        OrderServiceMock.instance.mockGetOrders()
+
+        and:
+        OpenapiDefinitionServedFromDifferentHostServiceMock1.instance.mockGetThings()
+        OpenapiDefinitionServedFromDifferentHostServiceMock2.instance.mockOpenApiDefinition()
+
+        when:
+        waitForRouteAddition {
+            assert getRoutesFromActuatorEndpoint().size() == 7
+        }
+
+        and:
+        List routes = getRoutesFromActuatorEndpoint()
+
+        then:
+        extractRoute(routes, "GET", "/users") != null
+        extractRoute(routes, "GET", "/users/{userId}") != null
+        extractRoute(routes, "GET", "/users/{userId}/orders") != null
+        extractRoute(routes, "GET", "/users/{userId}/orders/{orderId}") != null
+        extractRoute(routes, "POST", "/users/{userId}/orders") != null
+        extractRoute(routes, "GET", "/things") != null
+        extractRoute(routes, "GET", "/entities-of-service-with-openapi-definition-in-classpath") != null
+
+        when:
+        FluxExchangeResult<String> getOrdersResponse = webTestClient
+                .get().uri("http://localhost:${localServerPort}/users/${USER_ID}/orders")
+                .exchange().returnResult(String)
+
+        then:
+        getOrdersResponse.status.value() == 418
+        getOrdersResponse.getResponseBody().blockFirst() == '[{"id": "order-id-1"}]'
+
+        when:
+        OrderServiceMock.instance.resetAll()
+
+        and:
+        waitForRouteRemoval {
+            assert getRoutesFromActuatorEndpoint().size() == 4
+        }
+        routes = getRoutesFromActuatorEndpoint()
+
+        then: 'routes of a service whose OpenAPI definition responds with an HTTP error are removed'
+        extractRoute(routes, "GET", "/users/{userId}/orders") == null
+        extractRoute(routes, "GET", "/users") != null
+    }
+
+    def "Unmodified OpenAPI definitions are answered with 304 and keep their routes"() {
+        given:
+        waitForRemovalOfAllRoutes()
+
+        and:
+        OrderServiceMock.instance.mockOpenApiDefinitionWithETag('"order-service-v1"')
+
+        when:
+        waitForRouteAddition {
+            assert getRoutesFromActuatorEndpoint().size() == 4
+        }
+
+        then: 'subsequent retrievals are conditional requests'
+        waitForRouteAddition {
+            assert OrderServiceMock.instance.findAll(
+                    getRequestedFor(urlPathEqualTo("/custom-path-to/openapi-definition"))
+                            .withHeader("If-None-Match", equalTo('"order-service-v1"'))
+            ).size() >= 2
+        }
+
+        and: 'the routes of the unmodified definition are kept'
+        List routes = getRoutesFromActuatorEndpoint()
+        routes.size() == 4
+        extractRoute(routes, "GET", "/users/{userId}/orders") != null
+    }
+
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2022 Jan Bretschneider <mail@jan-bretschneider.de>
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You can find the License in the `LICENSE` file at the top level of
+ * this repository or may obtain a copy at
+ *
+ *   https://raw.githubusercontent.com/jbretsch/openapi-route-definition-locator/master/LICENSE
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package componenttest.fleet
+
+import componenttest.setup.app.TestApiGatewayApplication
+import componenttest.setup.wiremock.FleetServicesMock
+import groovy.json.JsonOutput
+import net.bretti.openapi.route.definition.locator.core.impl.OpenApiDefinitionRepository
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.context.SpringBootTest
+import org.springframework.cloud.gateway.event.RefreshRoutesEvent
+import org.springframework.cloud.gateway.route.RouteLocator
+import org.springframework.context.ApplicationEvent
+import org.springframework.context.ApplicationListener
+import org.springframework.context.ConfigurableApplicationContext
+import org.springframework.test.context.ActiveProfiles
+import org.springframework.test.context.DynamicPropertyRegistry
+import org.springframework.test.context.DynamicPropertySource
+import spock.lang.Specification
+import spock.lang.Tag
+
+import java.lang.management.ManagementFactory
+import java.lang.management.MemoryPoolMXBean
+import java.lang.management.MemoryType
+import java.time.Duration
+import java.util.concurrent.atomic.AtomicInteger
+
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT
+
+/**
+ * Simulates update cycles of a gateway with a fleet of services and writes a JSON report. Each cycle forces an
+ * update of all services via {@link OpenApiDefinitionRepository#loadInitially}, so the scheduler itself is not
+ * measured. Not part of the regular test run; run it via the {@code fleetSimulation} task and configure it via the
+ * system properties described in {@link FleetSimulationSettings}.
+ * <p>
+ * The stub services run in the same JVM as the gateway, so their allocations and CPU time are included in the
+ * measured heap and CPU usage.
+ */
+@Tag("fleet-simulation")
+@SpringBootTest(webEnvironment = RANDOM_PORT, classes = TestApiGatewayApplication)
+@ActiveProfiles("fleet-simulation")
+class FleetSimulationCompTest extends Specification {
+
+    static final Duration CYCLE_TIMEOUT = Duration.ofMinutes(5)
+
+    static FleetSimulationSettings settings = FleetSimulationSettings.fromSystemProperties()
+
+    @Autowired
+    OpenApiDefinitionRepository repository
+
+    @Autowired
+    RouteLocator routeLocator
+
+    @Autowired
+    ConfigurableApplicationContext applicationContext
+
+    AtomicInteger refreshRoutesEvents = new AtomicInteger()
+
+    /**
+     * Replaces the configured services with the services of the fleet. Their OpenAPI definitions are served
+     * before the application context starts, so that the initial load covers the whole fleet.
+     */
+    @DynamicPropertySource
+    static void fleetServices(DynamicPropertyRegistry registry) {
+        FleetServicesMock.instance.mockOpenApiDefinitions(settings, 0)
+        settings.services.times { serviceIndex ->
+            String prefix = "openapi-route-definition-locator.services[${serviceIndex}]"
+            registry.add("${prefix}.id", { "fleet-service-${serviceIndex}".toString() })
+            registry.add("${prefix}.uri", { "http://localhost:${FleetServicesMock.PORT}".toString() })
+            registry.add("${prefix}.openapi-definition-uri", {
+                "http://localhost:${FleetServicesMock.PORT}${FleetServicesMock.openApiDefinitionPath(serviceIndex)}".toString()
+            })
+        }
+    }
+
+    def setup() {
+        applicationContext.addApplicationListener({ ApplicationEvent event ->
+            if (event instanceof RefreshRoutesEvent) {
+                refreshRoutesEvents.incrementAndGet()
+            }
+        } as ApplicationListener<ApplicationEvent>)
+    }
+
+    def "Update cycles of the fleet are measured and reported"() {
+        given:
+        List<Map<String, Object>> cycles = []
+
+        when:
+        (1..settings.cycles).each { cycle ->
+            changeOpenApiDefinitions(cycle)
+            cycles << measureUpdateCycle(cycle)
+        }
+        File report = writeReport(cycles)
+
+        then:
+        report.exists()
+        cycles.every { it.loadedServices >= settings.services - settings.failingServices - settings.slowServices }
+    }
+
+    private void changeOpenApiDefinitions(int cycle) {
+        int changedServices = Math.min(settings.changedServicesPerCycle, settings.services)
+        changedServices.times {
+            int serviceIndex = ((cycle - 1) * changedServices + it) % settings.services
+            FleetServicesMock.instance.mockOpenApiDefinition(settings, serviceIndex, cycle)
+        }
+    }
+
+    private Map<String, Object> measureUpdateCycle(int cycle) {
+        List<MemoryPoolMXBean> heapPools = ManagementFactory.memoryPoolMXBeans.findAll { it.type == MemoryType.HEAP }
+        heapPools*.resetPeakUsage()
+        int refreshRoutesEventsBefore = refreshRoutesEvents.get()
+        long cpuTimeBefore = processCpuTimeNanos()
+        long start = System.nanoTime()
+
+        // Forces an update of all services via the initial load. It retrieves and publishes the OpenAPI definitions
+        // with the same parallelism and publication mode as the scheduled updates, but ignores the schedule and the
+        // backoff of each service. Failing and slow services are therefore retried in every cycle.
+        repository.loadInitially(CYCLE_TIMEOUT)
+
+        long durationNanos = System.nanoTime() - start
+        long cpuTimeNanos = processCpuTimeNanos() - cpuTimeBefore
+        return [
+                cycle              : cycle,
+                durationMillis     : Duration.ofNanos(durationNanos).toMillis(),
+                loadedServices     : repository.getLoadedServicesCount(),
+                refreshRoutesEvents: refreshRoutesEvents.get() - refreshRoutesEventsBefore,
+                routes             : routeLocator.getRoutes().count().block(),
+                heapUsedBytes      : ManagementFactory.memoryMXBean.heapMemoryUsage.used,
+                heapPeakBytes      : heapPools.sum { it.peakUsage.used },
+                processCpuMillis   : Duration.ofNanos(cpuTimeNanos).toMillis(),
+                processCpuRatio    : durationNanos == 0 ? 0 : cpuTimeNanos / durationNanos,
+        ]
+    }
+
+    private static long processCpuTimeNanos() {
+        return (ManagementFactory.operatingSystemMXBean as com.sun.management.OperatingSystemMXBean).processCpuTime
+    }
+
+    private static File writeReport(List<Map<String, Object>> cycles) {
+        List<Long> durations = cycles*.durationMillis as List<Long>
+        Map<String, Object> report = [
+                settings: settings.toMap(),
+                cycles  : cycles,
+                summary : [
+                        minDurationMillis    : durations.min(),
+                        maxDurationMillis    : durations.max(),
+                        averageDurationMillis: durations.sum() / durations.size(),
+                        refreshRoutesEvents  : cycles.sum { it.refreshRoutesEvents },
+                        maxHeapPeakBytes     : cycles*.heapPeakBytes.max(),
+                        availableProcessors  : Runtime.runtime.availableProcessors(),
+                        maxHeapBytes         : Runtime.runtime.maxMemory(),
+                ],
+        ]
+        File file = new File(settings.report)
+        file.parentFile?.mkdirs()
+        file.text = JsonOutput.prettyPrint(JsonOutput.toJson(report))
+        return file
+    }
+
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2022 Jan Bretschneider <mail@jan-bretschneider.de>
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You can find the License in the `LICENSE` file at the top level of
+ * this repository or may obtain a copy at
+ *
+ *   https://raw.githubusercontent.com/jbretsch/openapi-route-definition-locator/master/LICENSE
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package componenttest.fleet
+
+import groovy.transform.Immutable
+
+import java.time.Duration
+
+/**
+ * Settings of the fleet simulation. Each setting can be overridden by a system property with the prefix
+ * {@code fleet.}, e.g. {@code -Dfleet.services=500}.
+ */
+@Immutable(knownImmutableClasses = [Duration])
+class FleetSimulationSettings {
+    /** Number of simulated services. */
+    int services
+    /** Number of operations in the OpenAPI definition of each service. */
+    int operationsPerService
+    /** Latency of all OpenAPI definition responses. */
+    Duration latency
+    /** Number of services whose OpenAPI definition responses fail with status 500. */
+    int failingServices
+    /** Number of services whose OpenAPI definition responses are delayed by {@link #slowLatency}. */
+    int slowServices
+    /** Latency of the OpenAPI definition responses of slow services. */
+    Duration slowLatency
+    /** Number of services whose OpenAPI definition changes before each update cycle. */
+    int changedServicesPerCycle
+    /** Number of measured update cycles. */
+    int cycles
+    /** File the report is written to. */
+    String report
+
+    static FleetSimulationSettings fromSystemProperties() {
+        return new FleetSimulationSettings(
+                services: Integer.getInteger("fleet.services", 100),
+                operationsPerService: Integer.getInteger("fleet.operationsPerService", 20),
+                latency: Duration.ofMillis(Long.getLong("fleet.latencyMillis", 0)),
+                failingServices: Integer.getInteger("fleet.failingServices", 0),
+                slowServices: Integer.getInteger("fleet.slowServices", 0),
+                slowLatency: Duration.ofMillis(Long.getLong("fleet.slowLatencyMillis", 3000)),
+                changedServicesPerCycle: Integer.getInteger("fleet.changedServicesPerCycle", 10),
+                cycles: Integer.getInteger("fleet.cycles", 5),
+                report: System.getProperty("fleet.report", "build/reports/fleet-simulation/report.json"),
+        )
+    }
+
+    boolean isFailing(int serviceIndex) {
+        return serviceIndex < failingServices
+    }
+
+    boolean isSlow(int serviceIndex) {
+        return serviceIndex >= failingServices && serviceIndex < failingServices + slowServices
+    }
+
+    Map<String, Object> toMap() {
+        return [
+                services               : services,
+                operationsPerService   : operationsPerService,
+                latencyMillis          : latency.toMillis(),
+                failingServices        : failingServices,
+                slowServices           : slowServices,
+                slowLatencyMillis      : slowLatency.toMillis(),
+                changedServicesPerCycle: changedServicesPerCycle,
+                cycles                 : cycles,
+        ]
+    }
+}
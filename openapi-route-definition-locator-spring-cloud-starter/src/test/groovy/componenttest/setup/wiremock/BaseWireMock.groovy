@@ -25,8 +25,11 @@ import com.github.tomakehurst.wiremock.core.WireMockConfiguration
 abstract class BaseWireMock extends WireMockServer {
 
     BaseWireMock(int port) {
-        super(WireMockConfiguration.options()
-                .port(port)
+        this(WireMockConfiguration.options().port(port))
+    }
+
+    BaseWireMock(WireMockConfiguration options) {
+        super(options
                 .bindAddress("127.0.0.1")
                 .usingFilesUnderDirectory("src/test/resources/wiremock")
                 .notifier(new Slf4jNotifier(true)))
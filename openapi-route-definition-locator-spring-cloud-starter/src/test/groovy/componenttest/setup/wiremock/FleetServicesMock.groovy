@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2022 Jan Bretschneider <mail@jan-bretschneider.de>
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You can find the License in the `LICENSE` file at the top level of
+ * this repository or may obtain a copy at
+ *
+ *   https://raw.githubusercontent.com/jbretsch/openapi-route-definition-locator/master/LICENSE
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package componenttest.setup.wiremock
+
+import com.github.tomakehurst.wiremock.client.MappingBuilder
+import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration
+import componenttest.fleet.FleetSimulationSettings
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse
+import static com.github.tomakehurst.wiremock.client.WireMock.get
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo
+
+/**
+ * Serves the OpenAPI definitions of all services of the fleet simulation. Each service has its own OpenAPI
+ * definition path, generated definition, latency and failure mode.
+ */
+@Singleton(strict = false)
+class FleetServicesMock extends BaseWireMock {
+
+    static final int PORT = 9096
+
+    private final Set<Integer> mockedServices = new HashSet<>()
+
+    FleetServicesMock() {
+        super(WireMockConfiguration.options().port(PORT).containerThreads(200))
+    }
+
+    static String openApiDefinitionPath(int serviceIndex) {
+        return "/fleet-service-${serviceIndex}/openapi-definition"
+    }
+
+    void mockOpenApiDefinitions(FleetSimulationSettings settings, int version) {
+        settings.services.times { serviceIndex -> mockOpenApiDefinition(settings, serviceIndex, version) }
+    }
+
+    /**
+     * Serves a new version of the OpenAPI definition of the given service. The operations of different versions
+     * differ in the arguments of their filters.
+     */
+    void mockOpenApiDefinition(FleetSimulationSettings settings, int serviceIndex, int version) {
+        MappingBuilder mapping = get(urlPathEqualTo(openApiDefinitionPath(serviceIndex)))
+                .withId(UUID.nameUUIDFromBytes("fleet-service-${serviceIndex}".getBytes("UTF-8")))
+                .willReturn(response(settings, serviceIndex, version))
+        if (mockedServices.add(serviceIndex)) {
+            stubFor(mapping)
+        } else {
+            editStub(mapping)
+        }
+    }
+
+    private static ResponseDefinitionBuilder response(FleetSimulationSettings settings, int serviceIndex, int version) {
+        if (settings.isFailing(serviceIndex)) {
+            return aResponse().withStatus(500)
+        }
+        return aResponse()
+                .withStatus(200)
+                .withHeader("Content-Type", "application/yaml")
+                .withBody(openApiDefinition(serviceIndex, settings.operationsPerService, version))
+                .withFixedDelay((settings.isSlow(serviceIndex) ? settings.slowLatency : settings.latency).toMillis() as Integer)
+    }
+
+    private static String openApiDefinition(int serviceIndex, int operationCount, int version) {
+        StringBuilder yaml = new StringBuilder("""\
+            |openapi: 3.0.1
+            |info:
+            |  title: Fleet service ${serviceIndex}
+            |  version: 1.0.${version}
+            |x-gateway-route-settings:
+            |  filters:
+            |    - AddResponseHeader=X-Fleet-Service, fleet-service-${serviceIndex}
+            |  metadata:
+            |    fleetService: ${serviceIndex}
+            |paths:
+            |""".stripMargin())
+        String[] httpMethods = ["get", "post", "put", "delete"]
+        operationCount.times { operationIndex ->
+            if (operationIndex % httpMethods.length == 0) {
+                yaml.append("  /fleet-service-${serviceIndex}/resources-${operationIndex.intdiv(httpMethods.length)}:\n")
+            }
+            yaml.append("""\
+                |    ${httpMethods[operationIndex % httpMethods.length]}:
+                |      responses:
+                |        '200':
+                |          description: OK
+                |      x-gateway-route-settings:
+                |        filters:
+                |          - AddResponseHeader=X-Definition-Version, ${version}
+                |        metadata:
+                |          operation: ${operationIndex}
+                |""".stripMargin())
+        }
+        return yaml.toString()
+    }
+
+}
@@ -20,6 +20,7 @@ package componenttest.setup.wiremock
 
 
 import static com.github.tomakehurst.wiremock.client.WireMock.aResponse
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo
 import static com.github.tomakehurst.wiremock.client.WireMock.get
 import static com.github.tomakehurst.wiremock.client.WireMock.post
 import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo
@@ -42,6 +43,37 @@ class OrderServiceMock extends BaseWireMock {
         )
     }
 
+    void mockOpenApiDefinitionWithDelay(int delayMillis) {
+        client.register(get(urlPathEqualTo("/custom-path-to/openapi-definition"))
+            .willReturn(aResponse()
+                    .withStatus(200)
+                    .withHeader("Content-Type", "application/yaml")
+                    .withBodyFile("order-service/openapi.public.yaml")
+                    .withFixedDelay(delayMillis)
+            )
+        )
+    }
+
+    void mockOpenApiDefinitionWithETag(String eTag) {
+        client.register(get(urlPathEqualTo("/custom-path-to/openapi-definition"))
+            .atPriority(1)
+            .withHeader("If-None-Match", equalTo(eTag))
+            .willReturn(aResponse()
+                    .withStatus(304)
+                    .withHeader("ETag", eTag)
+            )
+        )
+        client.register(get(urlPathEqualTo("/custom-path-to/openapi-definition"))
+            .atPriority(2)
+            .willReturn(aResponse()
+                    .withStatus(200)
+                    .withHeader("Content-Type", "application/yaml")
+                    .withHeader("ETag", eTag)
+                    .withBodyFile("order-service/openapi.public.yaml")
+            )
+        )
+    }
+
     void mockOpenApiDefinitionContainingUnknownFilter() {
         client.register(get(urlPathEqualTo("/custom-path-to/openapi-definition"))
             .willReturn(aResponse()
@@ -19,7 +19,9 @@
 package net.bretti.openapi.route.definition.locator.autoconfigure
 
 import net.bretti.openapi.route.definition.locator.core.config.OpenApiRouteDefinitionLocatorProperties
+import net.bretti.openapi.route.definition.locator.core.impl.OpenApiDefinitionParser
 import net.bretti.openapi.route.definition.locator.core.impl.OpenApiDefinitionRepository
+import net.bretti.openapi.route.definition.locator.core.impl.OpenApiDefinitionRetriever
 import net.bretti.openapi.route.definition.locator.core.impl.OpenApiDefinitionUpdateScheduler
 import net.bretti.openapi.route.definition.locator.core.impl.OpenApiRouteDefinitionLocator
 import org.assertj.core.api.Assertions
@@ -44,6 +46,8 @@ class OpenApiRouteDefinitionLocatorAutoConfigurationTest extends Specification {
                 ))
                 .run({ context ->
                     Assertions.assertThat(context).hasSingleBean(OpenApiDefinitionRepository)
+                    Assertions.assertThat(context).hasSingleBean(OpenApiDefinitionRetriever)
+                    Assertions.assertThat(context).hasSingleBean(OpenApiDefinitionParser)
                     Assertions.assertThat(context).hasSingleBean(OpenApiRouteDefinitionLocatorProperties)
                     Assertions.assertThat(context).hasSingleBean(OpenApiRouteDefinitionLocator)
                     Assertions.assertThat(context).hasSingleBean(OpenApiDefinitionUpdateScheduler)
@@ -62,6 +66,8 @@ class OpenApiRouteDefinitionLocatorAutoConfigurationTest extends Specification {
                 .withPropertyValues("openapi-route-definition-locator.enabled=false")
                 .run({ context ->
                     Assertions.assertThat(context).doesNotHaveBean(OpenApiDefinitionRepository)
+                    Assertions.assertThat(context).doesNotHaveBean(OpenApiDefinitionRetriever)
+                    Assertions.assertThat(context).doesNotHaveBean(OpenApiDefinitionParser)
                     Assertions.assertThat(context).doesNotHaveBean(OpenApiRouteDefinitionLocatorProperties)
                     Assertions.assertThat(context).doesNotHaveBean(OpenApiRouteDefinitionLocator)
                     Assertions.assertThat(context).doesNotHaveBean(OpenApiDefinitionUpdateScheduler)
@@ -79,6 +85,8 @@ class OpenApiRouteDefinitionLocatorAutoConfigurationTest extends Specification {
                 .withPropertyValues("spring.cloud.gateway.server.webflux.enabled=false")
                 .run({ context ->
                     Assertions.assertThat(context).doesNotHaveBean(OpenApiDefinitionRepository)
+                    Assertions.assertThat(context).doesNotHaveBean(OpenApiDefinitionRetriever)
+                    Assertions.assertThat(context).doesNotHaveBean(OpenApiDefinitionParser)
                     Assertions.assertThat(context).doesNotHaveBean(OpenApiRouteDefinitionLocatorProperties)
                     Assertions.assertThat(context).doesNotHaveBean(OpenApiRouteDefinitionLocator)
                     Assertions.assertThat(context).doesNotHaveBean(OpenApiDefinitionUpdateScheduler)
@@ -94,6 +102,8 @@ class OpenApiRouteDefinitionLocatorAutoConfigurationTest extends Specification {
                 .withPropertyValues("openapi-route-definition-locator.enabled=false")
                 .run({ context ->
                     Assertions.assertThat(context).doesNotHaveBean(OpenApiDefinitionRepository)
+                    Assertions.assertThat(context).doesNotHaveBean(OpenApiDefinitionRetriever)
+                    Assertions.assertThat(context).doesNotHaveBean(OpenApiDefinitionParser)
                     Assertions.assertThat(context).doesNotHaveBean(OpenApiRouteDefinitionLocatorProperties)
                     Assertions.assertThat(context).doesNotHaveBean(OpenApiRouteDefinitionLocator)
                     Assertions.assertThat(context).doesNotHaveBean(OpenApiDefinitionUpdateScheduler)
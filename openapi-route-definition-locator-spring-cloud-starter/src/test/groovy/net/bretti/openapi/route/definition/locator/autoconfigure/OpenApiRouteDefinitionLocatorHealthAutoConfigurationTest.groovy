@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2022 Jan Bretschneider <mail@jan-bretschneider.de>
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You can find the License in the `LICENSE` file at the top level of
+ * this repository or may obtain a copy at
+ *
+ *   https://raw.githubusercontent.com/jbretsch/openapi-route-definition-locator/master/LICENSE
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package net.bretti.openapi.route.definition.locator.autoconfigure
+
+import net.bretti.openapi.route.definition.locator.core.impl.OpenApiDefinitionInitialLoader
+import net.bretti.openapi.route.definition.locator.core.impl.OpenApiRouteDefinitionLocatorHealthIndicator
+import org.assertj.core.api.Assertions
+import org.springframework.boot.autoconfigure.AutoConfigurations
+import org.springframework.boot.autoconfigure.logging.ConditionEvaluationReportLoggingListener
+import org.springframework.boot.autoconfigure.ssl.SslAutoConfiguration
+import org.springframework.boot.autoconfigure.web.reactive.WebFluxAutoConfiguration
+import org.springframework.boot.logging.LogLevel
+import org.springframework.boot.test.context.runner.ReactiveWebApplicationContextRunner
+import org.springframework.cloud.gateway.config.GatewayAutoConfiguration
+import spock.lang.Specification
+
+class OpenApiRouteDefinitionLocatorHealthAutoConfigurationTest extends Specification {
+    private final ReactiveWebApplicationContextRunner contextRunner = new ReactiveWebApplicationContextRunner()
+            .withInitializer(ConditionEvaluationReportLoggingListener.forLogLevel(LogLevel.INFO))
+            .withConfiguration(AutoConfigurations.of(
+                    OpenApiRouteDefinitionLocatorHealthAutoConfiguration,
+                    OpenApiRouteDefinitionLocatorAutoConfiguration,
+                    GatewayAutoConfiguration,
+                    WebFluxAutoConfiguration,
+                    SslAutoConfiguration,
+            ))
+
+    def "Initial load and health indicator are active if the initial load is enabled"() {
+        expect:
+        contextRunner
+                .withPropertyValues("openapi-route-definition-locator.initial-load.enabled=true")
+                .run({ context ->
+                    Assertions.assertThat(context).hasSingleBean(OpenApiDefinitionInitialLoader)
+                    Assertions.assertThat(context).hasSingleBean(OpenApiRouteDefinitionLocatorHealthIndicator)
+                })
+    }
+
+    def "Initial load and health indicator are inactive by default"() {
+        expect:
+        contextRunner
+                .run({ context ->
+                    Assertions.assertThat(context).doesNotHaveBean(OpenApiDefinitionInitialLoader)
+                    Assertions.assertThat(context).doesNotHaveBean(OpenApiRouteDefinitionLocatorHealthIndicator)
+                })
+    }
+
+    def "Health indicator is inactive if it is explicitly disabled"() {
+        expect:
+        contextRunner
+                .withPropertyValues(
+                        "openapi-route-definition-locator.initial-load.enabled=true",
+                        "management.health.openapi-route-definition-locator.enabled=false")
+                .run({ context ->
+                    Assertions.assertThat(context).hasSingleBean(OpenApiDefinitionInitialLoader)
+                    Assertions.assertThat(context).doesNotHaveBean(OpenApiRouteDefinitionLocatorHealthIndicator)
+                })
+    }
+
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2022 Jan Bretschneider <mail@jan-bretschneider.de>
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You can find the License in the `LICENSE` file at the top level of
+ * this repository or may obtain a copy at
+ *
+ *   https://raw.githubusercontent.com/jbretsch/openapi-route-definition-locator/master/LICENSE
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package net.bretti.openapi.route.definition.locator.autoconfigure
+
+import net.bretti.openapi.route.definition.locator.core.impl.OpenApiIndexedRoutePredicateHandlerMapping
+import net.bretti.openapi.route.definition.locator.core.impl.OpenApiRoutePathIndex
+import org.assertj.core.api.Assertions
+import org.springframework.boot.autoconfigure.AutoConfigurations
+import org.springframework.boot.autoconfigure.logging.ConditionEvaluationReportLoggingListener
+import org.springframework.boot.autoconfigure.ssl.SslAutoConfiguration
+import org.springframework.boot.autoconfigure.web.reactive.WebFluxAutoConfiguration
+import org.springframework.boot.logging.LogLevel
+import org.springframework.boot.test.context.runner.ReactiveWebApplicationContextRunner
+import org.springframework.cloud.gateway.config.GatewayAutoConfiguration
+import org.springframework.cloud.gateway.handler.RoutePredicateHandlerMapping
+import spock.lang.Specification
+
+class OpenApiRouteDefinitionLocatorIndexedRouteLookupAutoConfigurationTest extends Specification {
+    private final ReactiveWebApplicationContextRunner contextRunner = new ReactiveWebApplicationContextRunner()
+            .withInitializer(ConditionEvaluationReportLoggingListener.forLogLevel(LogLevel.INFO))
+            .withConfiguration(AutoConfigurations.of(
+                    OpenApiRouteDefinitionLocatorIndexedRouteLookupAutoConfiguration,
+                    OpenApiRouteDefinitionLocatorAutoConfiguration,
+                    GatewayAutoConfiguration,
+                    WebFluxAutoConfiguration,
+                    SslAutoConfiguration,
+            ))
+
+    def "Indexed route lookup replaces the gateway's handler mapping if it is enabled"() {
+        expect:
+        contextRunner
+                .withPropertyValues("openapi-route-definition-locator.indexed-route-lookup=true")
+                .run({ context ->
+                    Assertions.assertThat(context).hasSingleBean(OpenApiRoutePathIndex)
+                    Assertions.assertThat(context).getBean(RoutePredicateHandlerMapping)
+                            .isInstanceOf(OpenApiIndexedRoutePredicateHandlerMapping)
+                })
+    }
+
+    def "Indexed route lookup is inactive by default"() {
+        expect:
+        contextRunner
+                .run({ context ->
+                    Assertions.assertThat(context).doesNotHaveBean(OpenApiRoutePathIndex)
+                    Assertions.assertThat(context).getBean(RoutePredicateHandlerMapping)
+                            .isNotInstanceOf(OpenApiIndexedRoutePredicateHandlerMapping)
+                })
+    }
+
+    def "Indexed route lookup is inactive if the gateway is disabled"() {
+        expect:
+        contextRunner
+                .withPropertyValues(
+                        "openapi-route-definition-locator.indexed-route-lookup=true",
+                        "spring.cloud.gateway.server.webflux.enabled=false")
+                .run({ context ->
+                    Assertions.assertThat(context).hasNotFailed()
+                    Assertions.assertThat(context).doesNotHaveBean(OpenApiRoutePathIndex)
+                    Assertions.assertThat(context).doesNotHaveBean(RoutePredicateHandlerMapping)
+                })
+    }
+
+}
@@ -1,5 +1,6 @@
 rootProject.name = "openapi-route-definition-locator"
 include(
+    "openapi-route-definition-locator-benchmarks",
     "openapi-route-definition-locator-bom",
     "openapi-route-definition-locator-core",
     "openapi-route-definition-locator-spring-cloud-starter",